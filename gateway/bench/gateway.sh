@@ -0,0 +1,35 @@
+#!/usr/bin/env bash
+# Общие функции скриптов бенчмарков: запуск собранного gateway с переданными свойствами и его остановка.
+# Кэш ответов, объединение запросов и лимиты отключаются, иначе измеряются они, а не проксирование
+
+GATEWAY_PORT=${GATEWAY_PORT:-8080}
+SERVER_URL=${SERVER_URL:-http://localhost:9090}
+
+start_gateway() {
+    local log=$1
+    shift
+    java -jar target/shareit-gateway-0.0.1-SNAPSHOT.jar \
+        --server.port="$GATEWAY_PORT" \
+        --shareit-server.url="$SERVER_URL" \
+        --shareit-server.cache.enabled=false \
+        --shareit-server.cache.coalesce=false \
+        --shareit-gateway.limits.rate-limit-enabled=false \
+        --shareit-gateway.limits.adaptive-concurrency-enabled=false \
+        --logging.level.root=WARN \
+        --logging.level.org.springframework.web.client.RestTemplate=WARN \
+        "$@" > "$log" 2>&1 &
+    GATEWAY_PID=$!
+    trap 'kill $GATEWAY_PID 2>/dev/null || true' EXIT
+    until curl -sf "http://localhost:$GATEWAY_PORT/actuator/health" > /dev/null; do
+        sleep 1
+    done
+}
+
+stop_gateway() {
+    kill "$GATEWAY_PID"
+    wait "$GATEWAY_PID" 2>/dev/null || true
+}
+
+load_test() {
+    mvn -B -q -Pbench exec:exec -Dbench.main=ru.practicum.shareit.bench.LoadTest -Dbench.args="$*"
+}
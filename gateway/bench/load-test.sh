@@ -0,0 +1,24 @@
+#!/usr/bin/env bash
+# Пропускная способность gateway в блокирующем и неблокирующем режимах при CONCURRENCY запросах в полете.
+# Сервер должен быть запущен заранее, например: docker-compose up -d db server.
+# Для 10 000 соединений поднимите лимит дескрипторов: ulimit -n 65536
+set -euo pipefail
+cd "$(dirname "$0")/.."
+source bench/gateway.sh
+
+TARGET_PATH=${TARGET_PATH:-/items?from=0&size=20}
+USER_ID=${USER_ID:-1}
+CONCURRENCY=${CONCURRENCY:-10000}
+REQUESTS=${REQUESTS:-200000}
+MODES=${MODES:-blocking non-blocking}
+
+mvn -B -q -DskipTests package
+mvn -B -q -Pbench test-compile
+
+for mode in $MODES; do
+    start_gateway "target/gateway-$mode.log" --shareit-server.http.mode="$mode"
+    echo "== $mode"
+    load_test --url="http://localhost:$GATEWAY_PORT$TARGET_PATH" --user="$USER_ID" \
+        --concurrency="$CONCURRENCY" --requests="$REQUESTS"
+    stop_gateway
+done
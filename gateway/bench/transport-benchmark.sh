@@ -0,0 +1,36 @@
+#!/usr/bin/env bash
+# Транспорт между gateway и сервером: объем ответа на проводе и задержка через gateway.
+# Сервер должен быть запущен заранее, у пользователя USER_ID должно быть около 300 вещей.
+# Объем меряется запросами напрямую к серверу: тело сжатого ответа не распаковывается,
+# поэтому его длина равна объему на проводе без заголовков
+set -euo pipefail
+cd "$(dirname "$0")/.."
+source bench/gateway.sh
+
+TARGET_PATH=${TARGET_PATH:-/items?from=0&size=300}
+USER_ID=${USER_ID:-1}
+CONCURRENCY=${CONCURRENCY:-32}
+REQUESTS=${REQUESTS:-5000}
+
+mvn -B -q -DskipTests package
+mvn -B -q -Pbench test-compile
+
+echo "== сервер, identity"
+load_test --url="$SERVER_URL$TARGET_PATH" --user="$USER_ID" --concurrency=1 --requests=100
+echo "== сервер, gzip"
+load_test --url="$SERVER_URL$TARGET_PATH" --user="$USER_ID" --concurrency=1 --requests=100 --gzip
+echo "== сервер, h2c + gzip"
+load_test --url="$SERVER_URL$TARGET_PATH" --user="$USER_ID" --concurrency=1 --requests=100 --gzip --http2
+
+# режим, протокол и сжатие между gateway и сервером
+for transport in "blocking http1 true" "blocking http1 false" "non-blocking http1 false" "non-blocking h2c true"; do
+    read -r mode protocol compression <<< "$transport"
+    start_gateway "target/gateway-$mode-$protocol-$compression.log" \
+        --shareit-server.http.mode="$mode" \
+        --shareit-server.http.protocol="$protocol" \
+        --shareit-server.http.compression="$compression"
+    echo "== gateway: $mode, $protocol, сжатие $compression"
+    load_test --url="http://localhost:$GATEWAY_PORT$TARGET_PATH" --user="$USER_ID" \
+        --concurrency="$CONCURRENCY" --requests="$REQUESTS"
+    stop_gateway
+done
@@ -0,0 +1,136 @@
+package ru.practicum.shareit.bench;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Нагрузочный тест одного GET-запроса: держит заданное число запросов в полете и печатает пропускную
+// способность, перцентили задержки и объем принятых тел ответов.
+// Параметры: --url, --user (X-Sharer-User-Id), --concurrency, --requests, --warmup,
+// --gzip (запрашивать сжатые ответы, объем тел тогда равен объему на проводе) и --http2 (h2c для http://)
+public class LoadTest {
+    private static final PrintStream OUT = new PrintStream(new FileOutputStream(FileDescriptor.out), true,
+            StandardCharsets.UTF_8);
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = options(args);
+        URI uri = URI.create(options.getOrDefault("url", "http://localhost:8080/items?from=0&size=20"));
+        String user = options.getOrDefault("user", "1");
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "10000"));
+        int requests = Integer.parseInt(options.getOrDefault("requests", "100000"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", String.valueOf(Math.min(requests, 10_000))));
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(options.containsKey("http2") ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2))
+                .build();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .header("X-Sharer-User-Id", user)
+                .timeout(Duration.ofSeconds(60))
+                .GET();
+        if (options.containsKey("gzip")) {
+            builder.header("Accept-Encoding", "gzip");
+        }
+        HttpRequest request = builder.build();
+
+        OUT.printf("%s, %d запросов в полете%n", uri, concurrency);
+        run(client, request, concurrency, warmup);
+        Result result = run(client, request, concurrency, requests);
+        result.print();
+        System.exit(0);
+    }
+
+    private static Result run(HttpClient client, HttpRequest request, int concurrency, int requests)
+            throws InterruptedException {
+        Semaphore permits = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(requests);
+        Result result = new Result(requests);
+        long started = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            permits.acquire();
+            long sent = System.nanoTime();
+            int index = i;
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, e) -> {
+                result.record(index, System.nanoTime() - sent, response, e);
+                permits.release();
+                done.countDown();
+            });
+        }
+        done.await();
+        result.elapsed = System.nanoTime() - started;
+        return result;
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(pair[0], pair.length > 1 ? pair[1] : "true");
+        }
+        return options;
+    }
+
+    private static final class Result {
+        private final long[] latencies;
+        private final AtomicInteger errors = new AtomicInteger();
+        private final AtomicInteger non2xx = new AtomicInteger();
+        private final AtomicLong bodyBytes = new AtomicLong();
+        private volatile HttpResponse<byte[]> last;
+        private long elapsed;
+
+        private Result(int requests) {
+            this.latencies = new long[requests];
+        }
+
+        void record(int index, long latency, HttpResponse<byte[]> response, Throwable e) {
+            latencies[index] = latency;
+            if (e != null) {
+                errors.incrementAndGet();
+                return;
+            }
+            if (response.statusCode() / 100 != 2) {
+                non2xx.incrementAndGet();
+            }
+            bodyBytes.addAndGet(response.body().length);
+            last = response;
+        }
+
+        void print() {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            double seconds = elapsed / 1e9;
+            if (last != null) {
+                OUT.printf("протокол: %s, Content-Encoding: %s%n", last.version(),
+                        last.headers().firstValue("Content-Encoding").orElse("identity"));
+            }
+            OUT.printf(Locale.ROOT, "запросов: %d, ошибок: %d, не 2xx: %d%n",
+                    sorted.length, errors.get(), non2xx.get());
+            OUT.printf(Locale.ROOT, "пропускная способность: %.0f запросов/с%n", sorted.length / seconds);
+            OUT.printf(Locale.ROOT, "задержка, мс: p50 %.1f, p90 %.1f, p99 %.1f, max %.1f%n",
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    sorted[sorted.length - 1] / 1e6);
+            OUT.printf(Locale.ROOT, "тела ответов: %d байт, %.0f байт на ответ%n",
+                    bodyBytes.get(), (double) bodyBytes.get() / Math.max(1, sorted.length - errors.get()));
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)] / 1e6;
+        }
+    }
+}
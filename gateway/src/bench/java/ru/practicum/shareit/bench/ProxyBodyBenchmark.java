@@ -0,0 +1,87 @@
+package ru.practicum.shareit.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Горячий путь проксирования тела ответа сервера: прежний разбор в Object с повторной сериализацией
+// против пересылки байтов. Аллокации на операцию показывает профилировщик: -prof gc
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProxyBodyBenchmark {
+    @Param({"10", "300"})
+    private int items;
+
+    private final MappingJackson2HttpMessageConverter json = new MappingJackson2HttpMessageConverter();
+    private final ByteArrayHttpMessageConverter bytes = new ByteArrayHttpMessageConverter();
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (long id = 1; id <= items; id++) {
+            list.add(item(id));
+        }
+        body = new ObjectMapper().writeValueAsBytes(list);
+    }
+
+    @Benchmark
+    public byte[] objectMapping() throws IOException {
+        Object parsed = json.read(Object.class, new MockHttpInputMessage(body));
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        json.write(parsed, MediaType.APPLICATION_JSON, output);
+        return output.getBodyAsBytes();
+    }
+
+    @Benchmark
+    public byte[] rawBytes() throws IOException {
+        byte[] read = bytes.read(byte[].class, new MockHttpInputMessage(body));
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        bytes.write(read, MediaType.APPLICATION_JSON, output);
+        return output.getBodyAsBytes();
+    }
+
+    // Вещь в том виде, в каком ее отдает сервер в списке вещей владельца
+    private static Map<String, Object> item(long id) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("id", id);
+        item.put("name", "Дрель " + id);
+        item.put("description", "Аккумуляторная дрель с двумя батареями и кейсом, номер " + id);
+        item.put("available", id % 3 != 0);
+        item.put("requestId", id % 5 == 0 ? id / 5 : null);
+        item.put("lastBooking", Map.of("id", id * 2, "bookerId", id + 1));
+        item.put("nextBooking", Map.of("id", id * 2 + 1, "bookerId", id + 2));
+        List<Map<String, Object>> comments = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            comments.add(Map.of("id", id * 10 + i, "text", "Хорошая дрель, все работает",
+                    "authorName", "Пользователь " + i, "created", "2030-01-01T10:00:00"));
+        }
+        item.put("comments", comments);
+        return item;
+    }
+}
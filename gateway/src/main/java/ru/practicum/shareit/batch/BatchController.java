@@ -0,0 +1,152 @@
+package ru.practicum.shareit.batch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Controller;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import ru.practicum.shareit.batch.dto.BatchRequestDto;
+import ru.practicum.shareit.batch.dto.BatchResponseDto;
+import ru.practicum.shareit.client.HttpClientProperties;
+import ru.practicum.shareit.exception.ErrorHandler;
+import ru.practicum.shareit.exception.ServerOverloadedException;
+import ru.practicum.shareit.exception.TooManyRequestsException;
+import ru.practicum.shareit.limit.LimitProperties;
+import ru.practicum.shareit.limit.UserRateLimiter;
+
+import javax.annotation.PreDestroy;
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Controller
+@RequestMapping(path = "/batch")
+@Slf4j
+@Validated
+public class BatchController {
+    private static final int MAX_BATCH_SIZE = 20;
+    // Заголовки ответа, без которых клиенту не обойтись: курсор следующей страницы бронирований
+    // и пауза перед повтором после отказа по лимиту
+    private static final List<String> FORWARDED_HEADERS = List.of("X-Next-Cursor", HttpHeaders.RETRY_AFTER);
+
+    private final BatchRouter batchRouter;
+    private final UserRateLimiter rateLimiter;
+    private final boolean rateLimitEnabled;
+    private final ObjectMapper objectMapper;
+    private final ErrorHandler errorHandler;
+    // В блокирующем режиме клиент занимает поток на все время запроса к серверу,
+    // поэтому подзапросы выполняются параллельно в отдельном ограниченном пуле
+    private final ThreadPoolTaskExecutor executor;
+
+    public BatchController(BatchRouter batchRouter, UserRateLimiter rateLimiter, LimitProperties limitProperties,
+                           HttpClientProperties httpClientProperties, ObjectMapper objectMapper,
+                           ErrorHandler errorHandler,
+                           @Value("${shareit-gateway.batch.threads:64}") int threads,
+                           @Value("${shareit-gateway.batch.queue-capacity:1000}") int queueCapacity) {
+        this.batchRouter = batchRouter;
+        this.rateLimiter = rateLimiter;
+        this.rateLimitEnabled = limitProperties.isRateLimitEnabled();
+        this.objectMapper = objectMapper;
+        this.errorHandler = errorHandler;
+        if (httpClientProperties.getMode() == HttpClientProperties.Mode.NON_BLOCKING) {
+            this.executor = null;
+            return;
+        }
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("batch-");
+        executor.initialize();
+    }
+
+    @PostMapping()
+    protected CompletableFuture<ResponseEntity<Object>> batchGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                     @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE)
+                                                                     List<@Valid BatchRequestDto> requests) {
+        log.info("Post-запрос на выполнение пакета из {} запросов пользователя с id {}", requests.size(), userId);
+        List<CompletableFuture<BatchResponseDto>> responses = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            BatchRequestDto request = requests.get(i);
+            String id = request.getId() != null ? request.getId() : String.valueOf(i);
+            // Сам пакет уже списал один токен в RateLimitInterceptor, остальные подзапросы списывают по своему
+            boolean limited = i > 0 && rateLimitEnabled && rateLimiter.tryAcquire(userId) > 0;
+            CompletableFuture<ResponseEntity<Object>> response = limited
+                    ? CompletableFuture.failedFuture(
+                            new TooManyRequestsException("Превышен лимит запросов пользователя " + userId, 1))
+                    : dispatch(userId, request.getPath());
+            responses.add(response.handle((result, e) -> e == null ? toResponse(id, result) : toResponse(id, e)));
+        }
+        return CompletableFuture.allOf(responses.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> ResponseEntity.ok(responses.stream()
+                        .map(CompletableFuture::join)
+                        .collect(Collectors.toList())));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private CompletableFuture<ResponseEntity<Object>> dispatch(Long userId, String path) {
+        try {
+            if (executor == null) {
+                return batchRouter.route(userId, path);
+            }
+            return CompletableFuture.supplyAsync(() -> batchRouter.route(userId, path), executor)
+                    .thenCompose(Function.identity());
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.failedFuture(new ServerOverloadedException("Очередь пакетных запросов заполнена"));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private BatchResponseDto toResponse(String id, ResponseEntity<Object> response) {
+        Map<String, String> headers = FORWARDED_HEADERS.stream()
+                .filter(name -> response.getHeaders().getFirst(name) != null)
+                .collect(Collectors.toMap(Function.identity(), name -> response.getHeaders().getFirst(name)));
+        return new BatchResponseDto(id, response.getStatusCodeValue(), headers, body(response.getBody()));
+    }
+
+    // Ошибки подзапроса не прерывают пакет: ответ строит тот же ErrorHandler, что и для отдельных запросов
+    private BatchResponseDto toResponse(String id, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return toResponse(id, errorHandler.handle(cause));
+    }
+
+    // Тело ответа сервера приходит готовыми байтами, тело ошибки - объектом, который нужно сериализовать
+    private String body(Object body) {
+        if (body == null) {
+            return null;
+        }
+        if (body instanceof byte[]) {
+            byte[] bytes = (byte[]) body;
+            return bytes.length == 0 ? null : new String(bytes, StandardCharsets.UTF_8);
+        }
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package ru.practicum.shareit.batch;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+import ru.practicum.shareit.booking.BookingController;
+import ru.practicum.shareit.exception.EntityNotAvailableException;
+import ru.practicum.shareit.exception.EntityNotFoundException;
+import ru.practicum.shareit.item.ItemController;
+import ru.practicum.shareit.request.ItemRequestController;
+import ru.practicum.shareit.user.UserController;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Сопоставляет путь подзапроса пакета с методом существующего контроллера, чтобы подзапрос проходил
+// ту же проверку параметров и журналирование, что и отдельный запрос.
+// В пакете допускаются только чтения, поэтому порядок выполнения подзапросов не важен
+@Component
+@RequiredArgsConstructor
+public class BatchRouter {
+    private final ItemController itemController;
+    private final BookingController bookingController;
+    private final ItemRequestController requestController;
+    private final UserController userController;
+
+    public CompletableFuture<ResponseEntity<Object>> route(Long userId, String path) {
+        UriComponents uri = UriComponentsBuilder.fromUriString(path).build();
+        List<String> segments = uri.getPathSegments();
+        MultiValueMap<String, String> params = uri.getQueryParams();
+        if (segments.isEmpty() || segments.size() > 2) {
+            throw unsupported(path);
+        }
+        String second = segments.size() == 2 ? segments.get(1) : null;
+        switch (segments.get(0)) {
+            case "items":
+                if (second == null) {
+                    return itemController.getUserItemsGateWay(userId, from(params), size(params));
+                }
+                if ("search".equals(second)) {
+                    return itemController.searchItemGateWay(userId, required(params, "text"), from(params),
+                            size(params));
+                }
+                if ("suggest".equals(second)) {
+                    return itemController.suggestGateWay(userId, required(params, "prefix"), size(params));
+                }
+                return itemController.getItemByIdGateWay(userId, id(second));
+            case "bookings":
+                if (second == null) {
+                    return bookingController.getUserBookings(userId, from(params), size(params), state(params),
+                            param(params, "cursor"));
+                }
+                if ("owner".equals(second)) {
+                    return bookingController.getOwnerBookingsGateWay(userId, from(params), size(params),
+                            state(params), param(params, "cursor"));
+                }
+                return bookingController.getBookingGateWay(userId, id(second));
+            case "requests":
+                if (second == null) {
+                    return requestController.findAllByRequesterGateWay(userId);
+                }
+                if ("all".equals(second)) {
+                    return requestController.findAllGateWay(userId, from(params), size(params));
+                }
+                return requestController.getItemRequestGateWay(userId, id(second));
+            case "users":
+                return second == null
+                        ? userController.getAllUserGateWay()
+                        : userController.getUserByIdGateWay(id(second));
+            default:
+                throw unsupported(path);
+        }
+    }
+
+    // Значения по умолчанию те же, что в @RequestParam контроллеров
+    private static Integer from(MultiValueMap<String, String> params) {
+        return number(params, "from", 0);
+    }
+
+    private static Integer size(MultiValueMap<String, String> params) {
+        return number(params, "size", 10);
+    }
+
+    private static String state(MultiValueMap<String, String> params) {
+        String state = param(params, "state");
+        return state != null ? state : "ALL";
+    }
+
+    private static Long id(String segment) {
+        try {
+            return Long.parseLong(segment);
+        } catch (NumberFormatException e) {
+            throw new EntityNotAvailableException("Некорректный идентификатор: " + segment);
+        }
+    }
+
+    private static int number(MultiValueMap<String, String> params, String name, int defaultValue) {
+        String value = param(params, name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new EntityNotAvailableException("Некорректное значение параметра " + name + ": " + value);
+        }
+    }
+
+    private static String required(MultiValueMap<String, String> params, String name) {
+        String value = param(params, name);
+        if (value == null) {
+            throw new EntityNotAvailableException("Не указан обязательный параметр " + name);
+        }
+        return value;
+    }
+
+    // Строка запроса разбирается как в сервлетном контейнере: + означает пробел
+    private static String param(MultiValueMap<String, String> params, String name) {
+        String value = params.getFirst(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new EntityNotAvailableException("Некорректное значение параметра " + name + ": " + value);
+        }
+    }
+
+    private static EntityNotFoundException unsupported(String path) {
+        return new EntityNotFoundException("Запрос не поддерживается в пакете: " + path);
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.batch.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Pattern;
+
+@Data
+public class BatchRequestDto {
+    // Необязательный идентификатор, по которому клиент сопоставляет ответ с запросом
+    private String id;
+    @NotBlank
+    @Pattern(regexp = "^/.*", message = "Путь должен начинаться с /")
+    private String path;
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.batch.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+public class BatchResponseDto {
+    private final String id;
+    private final int status;
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private final Map<String, String> headers;
+    // JSON-тело ответа сервера вставляется как есть, без повторного разбора
+    @JsonRawValue
+    private final String body;
+}
@@ -5,65 +5,115 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingReturnDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerCallGuard;
+import ru.practicum.shareit.client.ServerWebClientFactory;
+import ru.practicum.shareit.user.MissingUserCache;
 
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
+    private final ResponseCache responseCache;
+    private final MissingUserCache missingUsers;
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                         ClientHttpRequestFactory requestFactory,
+                         ServerWebClientFactory webClientFactory, ResponseCache responseCache,
+                         ServerCallGuard serverCallGuard, MissingUserCache missingUsers) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                webClientFactory.create(serverUrl + API_PREFIX),
+                serverCallGuard
         );
+        this.responseCache = responseCache;
+        this.missingUsers = missingUsers;
     }
 
-    public ResponseEntity<Object> addBooking(BookingReturnDto bookingDto, Long userId) {
+    public CompletableFuture<ResponseEntity<Object>> addBooking(BookingReturnDto bookingDto, Long userId) {
         log.info("Post-запрос на добавление бронирования {}", bookingDto);
-        return post("",userId, bookingDto);
+        return responseCache.invalidateAfter(post("", userId, bookingDto), ResponseCache.ITEMS);
     }
 
-    public ResponseEntity<Object> patchBooking(Long userId, Long bookingId, Boolean approved) {
+    public CompletableFuture<ResponseEntity<Object>> patchBooking(Long userId, Long bookingId, Boolean approved) {
         Map<String, Object> parameters = Map.of(
                 "approved", approved);
         log.info("Patch-запрос на изменение бронирования. id пользователя = {}, id бронирования = {}, статус = {}",
                   userId, bookingId, approved);
-        return patch("/" + bookingId + "?approved={approved}", userId, parameters, null);
+        return responseCache.invalidateAfter(patch("/" + bookingId + "?approved={approved}", userId, parameters, null),
+                ResponseCache.ITEMS);
     }
 
-    public ResponseEntity<Object> getBooking(Long userId, Long bookingId) {
+    public CompletableFuture<ResponseEntity<Object>> patchBookings(Long userId, List<BookingDecisionDto> decisions) {
+        log.info("Patch-запрос на изменение {} бронирований пользователем с id {}", decisions.size(), userId);
+        return responseCache.invalidateAfter(patch("/batch", userId, decisions), ResponseCache.ITEMS);
+    }
+
+    public void exportOwnerBookings(Long userId, HttpServletResponse response) {
+        log.info("Get-запрос на выгрузку истории бронирований владельца с id {}", userId);
+        stream("/export", userId, response);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> getBooking(Long userId, Long bookingId) {
         log.info("Get-запрос на получение бронирования. id бронирования {}, id ползователя {}", bookingId, userId);
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> getUserBookings(Long userId, Integer from, Integer size, BookingState state) {
+    public CompletableFuture<ResponseEntity<Object>> getUserBookings(Long userId, Integer from, Integer size, BookingState state) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
         );
         log.info("Get-запрос на получение списка бронирований пользователя с id {} и статусом {}", userId, state);
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+        return missingUsers.guard(userId, () -> get("?state={state}&from={from}&size={size}", userId, parameters));
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> getUserBookingsAfter(Long userId, String cursor, Integer size, BookingState state) {
+        Map<String, Object> parameters = Map.of(
+                "state", state.name(),
+                "cursor", cursor,
+                "size", size
+        );
+        log.info("Get-запрос на получение списка бронирований пользователя с id {} и статусом {} после курсора {}",
+                userId, state, cursor);
+        return missingUsers.guard(userId, () -> get("?state={state}&cursor={cursor}&size={size}", userId, parameters));
     }
 
-    public ResponseEntity<Object> getOwnerBookings(Long userId, Integer from, Integer size, BookingState state) {
+    public CompletableFuture<ResponseEntity<Object>> getOwnerBookings(Long userId, Integer from, Integer size, BookingState state) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
         );
         log.info("Get-запрос на получение списка бронирований пользователя с id {} и статусом {}", userId, state);
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+        return missingUsers.guard(userId, () -> get("/owner?state={state}&from={from}&size={size}", userId, parameters));
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> getOwnerBookingsAfter(Long userId, String cursor, Integer size, BookingState state) {
+        Map<String, Object> parameters = Map.of(
+                "state", state.name(),
+                "cursor", cursor,
+                "size", size
+        );
+        log.info("Get-запрос на получение списка бронирований владельца с id {} и статусом {} после курсора {}",
+                userId, state, cursor);
+        return missingUsers.guard(userId, () -> get("/owner?state={state}&cursor={cursor}&size={size}", userId, parameters));
     }
 }
\ No newline at end of file
@@ -7,13 +7,19 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingReturnDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.exception.EntityNotAvailableException;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 
 @Controller
@@ -22,17 +28,27 @@ import javax.validation.constraints.PositiveOrZero;
 @Slf4j
 @Validated
 public class BookingController {
+    private static final int MAX_BATCH_SIZE = 500;
+
     private final BookingClient bookingClient;
 
     @PostMapping()
-    protected ResponseEntity<Object> addBookingGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
+    protected CompletableFuture<ResponseEntity<Object>> addBookingGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
                                                        @Valid @RequestBody BookingReturnDto bookingDto) {
         log.info("Post-запрос на добавление бронирования {}", bookingDto);
         return bookingClient.addBooking(bookingDto, userId);
     }
 
+    @PatchMapping("/batch")
+    protected CompletableFuture<ResponseEntity<Object>> patchBookingsGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                          @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE)
+                                                          List<@Valid BookingDecisionDto> decisions) {
+        log.info("Patch-запрос на изменение {} бронирований пользователем с id {}", decisions.size(), userId);
+        return bookingClient.patchBookings(userId, decisions);
+    }
+
     @PatchMapping("/{bookingId}")
-    protected ResponseEntity<Object> patchBookingGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
+    protected CompletableFuture<ResponseEntity<Object>> patchBookingGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
                                                          @PathVariable Long bookingId,
                                                          @RequestParam(value = "approved") Boolean approved) {
         log.info("Patch-запрос на изменение бронирования. id пользователя = {}, id бронирования = {}, статус = {}",
@@ -40,8 +56,15 @@ public class BookingController {
         return bookingClient.patchBooking(userId, bookingId, approved);
     }
 
+    @GetMapping("/export")
+    protected void exportOwnerBookingsGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                              HttpServletResponse response) {
+        log.info("Get-запрос на выгрузку истории бронирований владельца с id {}", userId);
+        bookingClient.exportOwnerBookings(userId, response);
+    }
+
     @GetMapping("/{bookingId}")
-    protected ResponseEntity<Object> getBookingGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public CompletableFuture<ResponseEntity<Object>> getBookingGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
                                                            @PathVariable(value = "bookingId", required = false)
                                                            Long bookingId) {
         log.info("Get-запрос на получение бронирования. id бронирования {}, id ползователя {}", bookingId, userId);
@@ -49,24 +72,32 @@ public class BookingController {
     }
 
     @GetMapping()
-    protected ResponseEntity<Object> getUserBookings(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public CompletableFuture<ResponseEntity<Object>> getUserBookings(@RequestHeader("X-Sharer-User-Id") Long userId,
                                                              @PositiveOrZero @RequestParam(value = "from", defaultValue = "0") Integer from,
                                                              @Positive @RequestParam(value = "size", defaultValue = "10") Integer size,
-                                                             @RequestParam(value = "state", defaultValue = "ALL") String state) {
+                                                             @RequestParam(value = "state", defaultValue = "ALL") String state,
+                                                             @RequestParam(value = "cursor", required = false) String cursor) {
         BookingState bookingState = BookingState.from(state)
                 .orElseThrow(() -> new EntityNotAvailableException("Unknown state: UNSUPPORTED_STATUS"));
         log.info("Get-запрос на получение списка бронирований пользователя с id {} и статусом {}", userId, state);
+        if (cursor != null) {
+            return bookingClient.getUserBookingsAfter(userId, cursor, size, bookingState);
+        }
         return bookingClient.getUserBookings(userId, from, size, bookingState);
     }
 
     @GetMapping("/owner")
-    protected ResponseEntity<Object> getOwnerBookingsGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public CompletableFuture<ResponseEntity<Object>> getOwnerBookingsGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
                                                                   @PositiveOrZero @RequestParam(value = "from", defaultValue = "0") Integer from,
                                                                   @Positive @RequestParam(value = "size", defaultValue = "10") Integer size,
-                                                                  @RequestParam(value = "state", required = false, defaultValue = "ALL") String state) {
+                                                                  @RequestParam(value = "state", required = false, defaultValue = "ALL") String state,
+                                                                  @RequestParam(value = "cursor", required = false) String cursor) {
         BookingState bookingState = BookingState.from(state)
                 .orElseThrow(() -> new EntityNotAvailableException("Unknown state: UNSUPPORTED_STATUS"));
         log.info("Get-запрос на получение списка бронирований пользователя с id {} и статусом {}", userId, state);
+        if (cursor != null) {
+            return bookingClient.getOwnerBookingsAfter(userId, cursor, size, bookingState);
+        }
         return bookingClient.getOwnerBookings(userId, from, size, bookingState);
     }
 }
\ No newline at end of file
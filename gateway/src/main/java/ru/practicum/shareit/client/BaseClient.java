@@ -1,101 +1,208 @@
 package ru.practicum.shareit.client;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Pattern;
+import javax.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
 
 public class BaseClient {
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+");
+    // Заголовки соединения между gateway и сервером, клиенту их не пересылаем
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of("connection", "keep-alive", "transfer-encoding",
+            "te", "trailer", "upgrade", "proxy-authenticate", "proxy-authorization", "content-length");
+
     protected final RestTemplate rest;
+    @Nullable
+    private final WebClient webClient;
+    @Nullable
+    private final ServerCallGuard guard;
 
     public BaseClient(RestTemplate rest) {
+        this(rest, null, null);
+    }
+
+    public BaseClient(RestTemplate rest, @Nullable WebClient webClient, @Nullable ServerCallGuard guard) {
         this.rest = rest;
+        this.webClient = webClient;
+        this.guard = guard;
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, long userId) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path, long userId) {
         return get(path, userId, null);
     }
 
 
-    protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, long userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, long userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, long userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, long userId) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path, long userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+    // Выгрузка пишет ответ сервера прямо в ответ сервлета на потоке запроса, поэтому в обоих режимах
+    // http.mode идет через RestTemplate. Автомат и лимит параллельности применяются, повторов нет
+    protected void stream(String path, Long userId, HttpServletResponse target) {
+        if (guard == null) {
+            copy(path, userId, target);
+            return;
+        }
+        try {
+            guard.stream(endpoint(HttpMethod.GET, path),
+                    () -> CompletableFuture.completedFuture(copy(path, userId, target))).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // Возвращает только статус ответа сервера: по нему автомат решает, была ли выгрузка неудачной
+    private ResponseEntity<Object> copy(String path, Long userId, HttpServletResponse target) {
+        HttpHeaders headers = defaultHeaders(userId);
+        headers.setAccept(List.of(MediaType.ALL));
+        try {
+            return rest.execute(path, HttpMethod.GET, request -> request.getHeaders().putAll(headers), response -> {
+                target.setStatus(response.getRawStatusCode());
+                MediaType contentType = response.getHeaders().getContentType();
+                if (contentType != null) {
+                    target.setContentType(contentType.toString());
+                }
+                StreamUtils.copy(response.getBody(), target.getOutputStream());
+                target.flushBuffer();
+                return ResponseEntity.status(response.getRawStatusCode()).build();
+            });
+        } catch (HttpStatusCodeException e) {
+            target.setStatus(e.getRawStatusCode());
+            if (e.getResponseHeaders() != null && e.getResponseHeaders().getContentType() != null) {
+                target.setContentType(e.getResponseHeaders().getContentType().toString());
+            }
+            try {
+                target.getOutputStream().write(e.getResponseBodyAsByteArray());
+            } catch (IOException ioException) {
+                throw new UncheckedIOException(ioException);
+            }
+            return ResponseEntity.status(e.getRawStatusCode()).build();
+        }
+    }
+
+    private <T> CompletableFuture<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        if (guard == null) {
+            return send(method, path, userId, parameters, body);
+        }
+        return guard.call(endpoint(method, path), method == HttpMethod.GET,
+                () -> send(method, path, userId, parameters, body));
+    }
+
+    // Идентификаторы в пути заменяются шаблоном, чтобы у всех предметов был общий автомат
+    private String endpoint(HttpMethod method, String path) {
+        int query = path.indexOf('?');
+        String route = query < 0 ? path : path.substring(0, query);
+        return getClass().getSimpleName() + " " + method + " " + ID_SEGMENT.matcher(route).replaceAll("/{id}");
+    }
+
+    private <T> CompletableFuture<ResponseEntity<Object>> send(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        if (webClient != null) {
+            return exchangeNonBlocking(webClient, method, path, userId, parameters, body);
+        }
+        return CompletableFuture.completedFuture(exchange(method, path, userId, parameters, body));
+    }
+
+    private <T> ResponseEntity<Object> exchange(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
         HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
 
-        ResponseEntity<Object> shareitServerResponse;
+        ResponseEntity<byte[]> shareitServerResponse;
         try {
             if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
+                shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class, parameters);
             } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
+                shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class);
             }
         } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+            return prepareGatewayResponse(e.getRawStatusCode(), e.getResponseHeaders(), e.getResponseBodyAsByteArray());
         }
-        return prepareGatewayResponse(shareitServerResponse);
+        return prepareGatewayResponse(shareitServerResponse.getStatusCodeValue(), shareitServerResponse.getHeaders(),
+                shareitServerResponse.getBody());
     }
 
-    private HttpHeaders defaultHeaders(Long userId) {
+    private static <T> CompletableFuture<ResponseEntity<Object>> exchangeNonBlocking(WebClient webClient, HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        WebClient.RequestBodySpec request = webClient.method(method)
+                .uri(path, parameters != null ? parameters : Map.of())
+                .headers(headers -> headers.addAll(defaultHeaders(userId)));
+        WebClient.RequestHeadersSpec<?> spec = body != null ? request.bodyValue(body) : request;
+
+        return spec.exchangeToMono(response -> response.toEntity(byte[].class))
+                .map(response -> prepareGatewayResponse(response.getStatusCodeValue(), response.getHeaders(),
+                        response.getBody()))
+                .toFuture();
+    }
+
+    private static HttpHeaders defaultHeaders(Long userId) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.setAccept(List.of(MediaType.APPLICATION_JSON));
@@ -105,17 +212,24 @@ public class BaseClient {
         return headers;
     }
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
+    // Тело ответа сервера передается клиенту байтами, без разбора в Object и повторной сериализации
+    private static ResponseEntity<Object> prepareGatewayResponse(int status, @Nullable HttpHeaders serverHeaders,
+                                                                 @Nullable byte[] body) {
+        HttpHeaders headers = new HttpHeaders();
+        if (serverHeaders != null) {
+            serverHeaders.forEach((name, values) -> {
+                if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                    headers.put(name, values);
+                }
+            });
         }
 
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(status).headers(headers);
 
-        if (response.hasBody()) {
-            return responseBuilder.body(response.getBody());
+        if (body != null && body.length > 0) {
+            return responseBuilder.body(body);
         }
 
         return responseBuilder.build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,107 @@
+package ru.practicum.shareit.client;
+
+class CircuitBreaker {
+    static final long REJECTED = -1;
+
+    enum State {
+        // Вызовы идут на сервер, результаты копятся в скользящем окне
+        CLOSED,
+        // Вызовы отклоняются сразу, пока не истечет время ожидания
+        OPEN,
+        // Пропускается один пробный вызов, он решает, закрыть или снова открыть автомат
+        HALF_OPEN
+    }
+
+    private final boolean[] outcomes;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    // Растет при каждой смене состояния. Результат вызова учитывается, только если вызов
+    // был разрешен в текущем поколении: поздний ответ из закрытого состояния не решает судьбу пробного вызова
+    private long generation;
+    private int index;
+    private int calls;
+    private int failures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    CircuitBreaker(ResilienceProperties properties) {
+        this.outcomes = new boolean[properties.getSlidingWindow()];
+        this.minimumCalls = properties.getMinimumCalls();
+        this.failureRateThreshold = properties.getFailureRateThreshold();
+        this.openNanos = properties.getOpenDuration().toNanos();
+    }
+
+    // Возвращает поколение, в котором разрешен вызов, или REJECTED
+    synchronized long tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return REJECTED;
+            }
+            reset(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return REJECTED;
+            }
+            trialInFlight = true;
+        }
+        return generation;
+    }
+
+    // Разрешение получено, но вызов так и не был отправлен
+    synchronized void cancel(long permit) {
+        if (permit == generation && state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    synchronized void record(long permit, boolean failure) {
+        if (permit != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            if (failure) {
+                open();
+            } else {
+                reset(State.CLOSED);
+            }
+            return;
+        }
+        if (calls == outcomes.length) {
+            if (outcomes[index]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        outcomes[index] = failure;
+        if (failure) {
+            failures++;
+        }
+        index = (index + 1) % outcomes.length;
+        if (calls >= minimumCalls && failures * 100 >= failureRateThreshold * calls) {
+            open();
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private void open() {
+        reset(State.OPEN);
+        openedAt = System.nanoTime();
+    }
+
+    private void reset(State newState) {
+        state = newState;
+        generation++;
+        index = 0;
+        calls = 0;
+        failures = 0;
+        trialInFlight = false;
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-server.http")
+public class HttpClientProperties {
+    private Mode mode = Mode.BLOCKING;
+    private Protocol protocol = Protocol.HTTP1;
+    private boolean compression = true;
+    private int maxTotal = 200;
+    private int maxPerRoute = 200;
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration connectionRequestTimeout = Duration.ofSeconds(2);
+    private Duration readTimeout = Duration.ofSeconds(30);
+    private Duration keepAlive = Duration.ofSeconds(30);
+    private Duration idleTimeout = Duration.ofSeconds(30);
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+
+    public enum Mode {
+        // RestTemplate на общем пуле соединений, поток запроса ждет ответа сервера
+        BLOCKING,
+        // WebClient на reactor-netty, поток запроса освобождается до получения ответа
+        NON_BLOCKING
+    }
+
+    public enum Protocol {
+        HTTP1,
+        // HTTP/2 без TLS с мультиплексированием запросов, поддерживается только в неблокирующем режиме
+        H2C
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-server.resilience")
+public class ResilienceProperties {
+    private int slidingWindow = 20;
+    private int minimumCalls = 10;
+    private int failureRateThreshold = 50;
+    private Duration openDuration = Duration.ofSeconds(10);
+
+    private int maxAttempts = 3;
+    private Duration backoff = Duration.ofMillis(100);
+    private Duration maxBackoff = Duration.ofSeconds(1);
+    private double retryRatio = 0.1;
+    private int maxRetryBalance = 10;
+    private int retryThreads = 8;
+}
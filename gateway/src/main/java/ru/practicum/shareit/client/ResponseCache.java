@@ -0,0 +1,151 @@
+package ru.practicum.shareit.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Component
+public class ResponseCache {
+    public static final String ITEMS = "items";
+    public static final String REQUESTS = "requests";
+
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final boolean enabled;
+    private final boolean coalesce;
+    private final Cache<Key, ResponseEntity<Object>> cache;
+    // Версия области растет при каждом изменении, ответ загруженный до изменения в кэш не попадает
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final Map<Key, CompletableFuture<ResponseEntity<Object>>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+
+    @Autowired
+    public ResponseCache(ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+
+    ResponseCache(ResponseCacheProperties properties, MeterRegistry meterRegistry, Ticker ticker, Executor executor) {
+        this.enabled = properties.isEnabled();
+        this.coalesce = properties.isCoalesce();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxWeight().toBytes())
+                .weigher((Key key, ResponseEntity<Object> response) -> weight(response))
+                .expireAfterWrite(properties.getTtl())
+                .ticker(ticker)
+                .executor(executor)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "shareit-server-responses");
+        this.coalesced = Counter.builder("shareit-server.requests.coalesced")
+                .description("Запросы к серверу, которые не были отправлены благодаря объединению")
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> get(String region, String path, Long userId,
+                                                         @Nullable Map<String, Object> parameters,
+                                                         Supplier<CompletableFuture<ResponseEntity<Object>>> loader) {
+        Key key = new Key(region, path, userId, parameters);
+        if (enabled) {
+            ResponseEntity<Object> cached = cache.getIfPresent(key);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        if (!coalesce) {
+            return load(key, loader);
+        }
+
+        // Одинаковые одновременные запросы ждут ответа на первый из них, а не идут на сервер сами
+        CompletableFuture<ResponseEntity<Object>> leader = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<Object>> pending = inFlight.putIfAbsent(key, leader);
+        if (pending != null) {
+            coalesced.increment();
+            return pending;
+        }
+        load(key, loader).whenComplete((response, e) -> {
+            inFlight.remove(key, leader);
+            if (e != null) {
+                leader.completeExceptionally(e instanceof CompletionException && e.getCause() != null
+                        ? e.getCause() : e);
+            } else {
+                leader.complete(response);
+            }
+        });
+        return leader;
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> invalidateAfter(CompletableFuture<ResponseEntity<Object>> request,
+                                                                     String... regions) {
+        return request.whenComplete((response, e) -> invalidate(regions));
+    }
+
+    public void invalidate(String... regions) {
+        for (String region : regions) {
+            version(region).incrementAndGet();
+            inFlight.keySet().removeIf(key -> key.getRegion().equals(region));
+            cache.asMap().keySet().removeIf(key -> key.getRegion().equals(region));
+        }
+    }
+
+    private CompletableFuture<ResponseEntity<Object>> load(Key key,
+                                                          Supplier<CompletableFuture<ResponseEntity<Object>>> loader) {
+        AtomicLong version = version(key.getRegion());
+        long loadedVersion = version.get();
+        CompletableFuture<ResponseEntity<Object>> upstream;
+        try {
+            upstream = loader.get();
+        } catch (RuntimeException e) {
+            upstream = CompletableFuture.failedFuture(e);
+        }
+        return upstream.thenApply(response -> {
+            if (enabled && isCacheable(response)) {
+                cache.put(key, response);
+                if (version.get() != loadedVersion) {
+                    cache.invalidate(key);
+                }
+            }
+            return response;
+        });
+    }
+
+    private AtomicLong version(String region) {
+        return versions.computeIfAbsent(region, r -> new AtomicLong());
+    }
+
+    private static boolean isCacheable(ResponseEntity<Object> response) {
+        String cacheControl = response.getHeaders().getCacheControl();
+        return response.getStatusCode() == HttpStatus.OK
+                && (cacheControl == null || !cacheControl.contains("no-store"));
+    }
+
+    private static int weight(ResponseEntity<Object> response) {
+        Object body = response.getBody();
+        return ENTRY_OVERHEAD + (body instanceof byte[] ? ((byte[]) body).length : 0);
+    }
+
+    @Value
+    private static class Key {
+        String region;
+        String path;
+        Long userId;
+        Map<String, Object> parameters;
+    }
+}
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-server.cache")
+public class ResponseCacheProperties {
+    private boolean enabled = true;
+    private boolean coalesce = true;
+    private Duration ttl = Duration.ofSeconds(30);
+    private DataSize maxWeight = DataSize.ofMegabytes(64);
+}
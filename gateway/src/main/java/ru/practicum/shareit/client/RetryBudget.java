@@ -0,0 +1,34 @@
+package ru.practicum.shareit.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+class RetryBudget {
+    private static final long TOKEN = 1000;
+
+    private final long deposit;
+    private final long maxBalance;
+    // Баланс в тысячных долях повтора: каждый вызов пополняет его на долю retryRatio, каждый повтор списывает единицу
+    private final AtomicLong balance;
+
+    RetryBudget(ResilienceProperties properties) {
+        this.deposit = Math.round(properties.getRetryRatio() * TOKEN);
+        this.maxBalance = properties.getMaxRetryBalance() * TOKEN;
+        this.balance = new AtomicLong(maxBalance);
+    }
+
+    void deposit() {
+        balance.updateAndGet(current -> Math.min(maxBalance, current + deposit));
+    }
+
+    boolean tryWithdraw() {
+        while (true) {
+            long current = balance.get();
+            if (current < TOKEN) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - TOKEN)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exception.ServerOverloadedException;
+import ru.practicum.shareit.limit.AdaptiveConcurrencyLimiter;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class ServerCallGuard {
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ResilienceProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final RetryBudget retryBudget;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    // Повтор ждет задержку и в блокирующем режиме выполняет запрос к серверу в этом пуле, а не в общем ForkJoinPool.
+    // Число отложенных повторов ограничено бюджетом повторов
+    private final ScheduledExecutorService retryScheduler;
+
+    public ServerCallGuard(AdaptiveConcurrencyLimiter concurrencyLimiter, ResilienceProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.retryBudget = new RetryBudget(properties);
+        AtomicInteger threads = new AtomicInteger();
+        this.retryScheduler = Executors.newScheduledThreadPool(properties.getRetryThreads(), task -> {
+            Thread thread = new Thread(task, "server-retry-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        retryScheduler.shutdownNow();
+    }
+
+    // Повторяются только идемпотентные вызовы и только при недоступности сервера, а не при ошибках в ответе
+    public CompletableFuture<ResponseEntity<Object>> call(String endpoint, boolean idempotent,
+                                                          Supplier<CompletableFuture<ResponseEntity<Object>>> request) {
+        if (idempotent) {
+            retryBudget.deposit();
+        }
+        return attempt(endpoint, idempotent, true, request, 1);
+    }
+
+    // Потоковая выгрузка проходит через автомат и лимит параллельности, но не повторяется: тело уже передается
+    // клиенту. Ее длительность зависит от объема истории, поэтому адаптивный лимит не учитывает ее задержку
+    public CompletableFuture<ResponseEntity<Object>> stream(String endpoint,
+                                                            Supplier<CompletableFuture<ResponseEntity<Object>>> request) {
+        return attempt(endpoint, false, false, request, 1);
+    }
+
+    private CompletableFuture<ResponseEntity<Object>> attempt(String endpoint, boolean idempotent, boolean timed,
+                                                              Supplier<CompletableFuture<ResponseEntity<Object>>> request,
+                                                              int attempt) {
+        CircuitBreaker breaker = breakers.computeIfAbsent(endpoint, this::createBreaker);
+        long permit = breaker.tryAcquire();
+        if (permit == CircuitBreaker.REJECTED) {
+            count(endpoint, "rejected");
+            return CompletableFuture.failedFuture(
+                    new ServerOverloadedException("Сервер временно недоступен, повторите запрос позже"));
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            breaker.cancel(permit);
+            return CompletableFuture.failedFuture(
+                    new ServerOverloadedException("Сервер перегружен, повторите запрос позже"));
+        }
+        long start = System.nanoTime();
+        CompletableFuture<ResponseEntity<Object>> response;
+        try {
+            response = request.get();
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        return response.handle((result, e) -> {
+            boolean failed = e != null || isUnavailable(result);
+            if (timed) {
+                concurrencyLimiter.release(start, failed);
+            } else {
+                concurrencyLimiter.release(failed);
+            }
+            breaker.record(permit, failed);
+            count(endpoint, failed ? "failure" : "success");
+            if (failed && idempotent && attempt < properties.getMaxAttempts()) {
+                if (retryBudget.tryWithdraw()) {
+                    long delay = backoff(attempt);
+                    log.info("Повтор {} вызова {} через {} мс", attempt, endpoint, delay);
+                    meterRegistry.counter("shareit-server.retries", "outcome", "retried").increment();
+                    return retryLater(endpoint, request, attempt + 1, delay);
+                }
+                meterRegistry.counter("shareit-server.retries", "outcome", "budget-exhausted").increment();
+            }
+            return e != null ? CompletableFuture.<ResponseEntity<Object>>failedFuture(unwrap(e))
+                    : CompletableFuture.completedFuture(result);
+        }).thenCompose(Function.identity());
+    }
+
+    private CompletableFuture<ResponseEntity<Object>> retryLater(
+            String endpoint, Supplier<CompletableFuture<ResponseEntity<Object>>> request, int attempt, long delay) {
+        CompletableFuture<ResponseEntity<Object>> retried = new CompletableFuture<>();
+        try {
+            retryScheduler.schedule(() -> attempt(endpoint, true, true, request, attempt).whenComplete((result, e) -> {
+                if (e != null) {
+                    retried.completeExceptionally(unwrap(e));
+                } else {
+                    retried.complete(result);
+                }
+            }), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            retried.completeExceptionally(
+                    new ServerOverloadedException("Сервер временно недоступен, повторите запрос позже"));
+        }
+        return retried;
+    }
+
+    private CircuitBreaker createBreaker(String endpoint) {
+        CircuitBreaker breaker = new CircuitBreaker(properties);
+        Gauge.builder("shareit-server.circuit-breaker.state", breaker, b -> b.getState().ordinal())
+                .description("0 - закрыт, 1 - открыт, 2 - полуоткрыт")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        return breaker;
+    }
+
+    // Экспоненциальная задержка с полным разбросом, чтобы повторы разных запросов не совпадали по времени
+    private long backoff(int attempt) {
+        long ceiling = Math.min(properties.getMaxBackoff().toMillis(),
+                properties.getBackoff().toMillis() << (attempt - 1));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private void count(String endpoint, String outcome) {
+        meterRegistry.counter("shareit-server.circuit-breaker.calls", "endpoint", endpoint, "outcome", outcome)
+                .increment();
+    }
+
+    private static boolean isUnavailable(ResponseEntity<Object> response) {
+        HttpStatus status = response.getStatusCode();
+        return status == HttpStatus.BAD_GATEWAY || status == HttpStatus.SERVICE_UNAVAILABLE
+                || status == HttpStatus.GATEWAY_TIMEOUT;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
@@ -0,0 +1,70 @@
+package ru.practicum.shareit.client;
+
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import javax.annotation.PreDestroy;
+
+@Slf4j
+@Component
+public class ServerWebClientFactory {
+    private final WebClient.Builder builder;
+    @Nullable
+    private final ConnectionProvider connectionProvider;
+    @Nullable
+    private final ReactorClientHttpConnector connector;
+
+    public ServerWebClientFactory(WebClient.Builder builder, HttpClientProperties properties) {
+        this.builder = builder;
+        if (properties.getMode() != HttpClientProperties.Mode.NON_BLOCKING) {
+            if (properties.getProtocol() == HttpClientProperties.Protocol.H2C) {
+                log.warn("Протокол h2c поддерживается только в неблокирующем режиме, используется HTTP/1.1");
+            }
+            this.connectionProvider = null;
+            this.connector = null;
+            return;
+        }
+        log.info("Запросы к shareit-server выполняются в неблокирующем режиме по протоколу {}",
+                properties.getProtocol());
+        this.connectionProvider = ConnectionProvider.builder("shareit-server")
+                .maxConnections(properties.getMaxTotal())
+                .pendingAcquireTimeout(properties.getConnectionRequestTimeout())
+                .maxIdleTime(properties.getIdleTimeout())
+                .evictInBackground(properties.getIdleTimeout())
+                .metrics(true)
+                .build();
+        this.connector = new ReactorClientHttpConnector(HttpClient.create(connectionProvider)
+                .protocol(properties.getProtocol() == HttpClientProperties.Protocol.H2C
+                        ? HttpProtocol.H2C : HttpProtocol.HTTP11)
+                .compress(properties.isCompression())
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .responseTimeout(properties.getReadTimeout()));
+    }
+
+    // В блокирующем режиме возвращает null, и клиент работает через RestTemplate
+    @Nullable
+    public WebClient create(String baseUrl) {
+        if (connector == null) {
+            return null;
+        }
+        return builder.clone()
+                .uriBuilderFactory(new DefaultUriBuilderFactory(baseUrl))
+                .clientConnector(connector)
+                .build();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (connectionProvider != null) {
+            connectionProvider.dispose();
+        }
+    }
+}
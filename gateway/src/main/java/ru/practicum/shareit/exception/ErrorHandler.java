@@ -1,18 +1,41 @@
 package ru.practicum.shareit.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.method.annotation.ExceptionHandlerMethodResolver;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 
 import javax.validation.ConstraintViolationException;
+import java.lang.reflect.Method;
 import java.util.Map;
 
 @Slf4j
 @RestControllerAdvice
 public class ErrorHandler {
+    private static final ExceptionHandlerMethodResolver HANDLERS =
+            new ExceptionHandlerMethodResolver(ErrorHandler.class);
+
+    // Ответ на исключение, который вернул бы обработчик ниже: подзапросы пакета не проходят через DispatcherServlet,
+    // но статус, заголовки и тело ошибки у них должны быть такими же, как у отдельного запроса
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<Object> handle(Throwable e) {
+        Method handler = HANDLERS.resolveMethodByThrowable(e);
+        Object result = ReflectionUtils.invokeMethod(handler, this, e);
+        if (result instanceof ResponseEntity) {
+            return (ResponseEntity<Object>) result;
+        }
+        ResponseStatus status = AnnotatedElementUtils.findMergedAnnotation(handler, ResponseStatus.class);
+        return ResponseEntity.status(status != null ? status.code() : HttpStatus.INTERNAL_SERVER_ERROR).body(result);
+    }
 
     @ExceptionHandler({MethodArgumentNotValidException.class,
             ConstraintViolationException.class, EntityNotAvailableException.class,
@@ -30,6 +53,22 @@ public class ErrorHandler {
         return Map.of("Error", e.getMessage());
     }
 
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Map<String, String>> tooManyRequestsExceptionHandler(final TooManyRequestsException e) {
+        log.info("Error {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler({ServerOverloadedException.class, ResourceAccessException.class,
+            WebClientRequestException.class})
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Map<String, String> serverOverloadedExceptionHandler(final RuntimeException e) {
+        log.info("Error {}", e.getMessage());
+        return Map.of("error", e.getMessage());
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public Map<String, String> handleThrowable(final Throwable e) {
@@ -5,67 +5,138 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.util.UriComponentsBuilder;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerCallGuard;
+import ru.practicum.shareit.client.ServerWebClientFactory;
 import ru.practicum.shareit.comment.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.MissingUserCache;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
 public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
+    private final ResponseCache responseCache;
+    private final MissingUserCache missingUsers;
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      ClientHttpRequestFactory requestFactory,
+                      ServerWebClientFactory webClientFactory, ResponseCache responseCache,
+                      ServerCallGuard serverCallGuard, MissingUserCache missingUsers) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                webClientFactory.create(serverUrl + API_PREFIX),
+                serverCallGuard
         );
+        this.responseCache = responseCache;
+        this.missingUsers = missingUsers;
     }
 
-    public ResponseEntity<Object> addItem(Long userId, ItemDto itemDto) {
+    public CompletableFuture<ResponseEntity<Object>> addItem(Long userId, ItemDto itemDto) {
         log.info("Получен запрос на добавление предмета {} пользователем с id {}", itemDto, userId);
-        return post("", userId, itemDto);
+        return missingUsers.guard(userId, () -> responseCache.invalidateAfter(post("", userId, itemDto),
+                ResponseCache.ITEMS, ResponseCache.REQUESTS));
     }
 
-    public ResponseEntity<Object> updateItem(Long userId, ItemDto itemDto, Long id) {
+    public CompletableFuture<ResponseEntity<Object>> updateItem(Long userId, ItemDto itemDto, Long id) {
         log.info("Получен запрос на обновление предмета = {} пользователем с id = {}", itemDto, userId);
-        return patch("/" + id, userId, itemDto);
+        return missingUsers.guard(userId, () -> responseCache.invalidateAfter(patch("/" + id, userId, itemDto),
+                ResponseCache.ITEMS, ResponseCache.REQUESTS));
     }
 
-    public ResponseEntity<Object> getUserItems(Long userId, Integer from, Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> getUserItems(Long userId, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
         );
         log.info("Получен запрос на получение списка предметов пользователя с id = {}", userId);
-        return get("?from={from}&size={size}", userId, parameters);
+        return missingUsers.guard(userId, () -> get("?from={from}&size={size}", userId, parameters));
     }
 
-    public ResponseEntity<Object> getItemById(Long userId, Long id) {
+    public CompletableFuture<ResponseEntity<Object>> getItemById(Long userId, Long id) {
         log.info("Получен запрос на получение предмета с id = {}", id);
-        return get("/" + id, userId);
+        String path = "/" + id;
+        return responseCache.get(ResponseCache.ITEMS, path, userId, null, () -> get(path, userId));
     }
 
-    public ResponseEntity<Object> searchItem(Long userId, String text, Integer from, Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> getAvailability(Long userId, Long id, LocalDateTime from,
+                                                                     LocalDateTime to) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("id", id);
+        parameters.put("from", from);
+        parameters.put("to", to);
+        // Необязательные границы периода попадают в строку запроса, только если заданы
+        String path = UriComponentsBuilder.fromPath("/{id}/availability")
+                .queryParamIfPresent("from", Optional.ofNullable(from).map(value -> "{from}"))
+                .queryParamIfPresent("to", Optional.ofNullable(to).map(value -> "{to}"))
+                .build()
+                .toUriString();
+        log.info("Получен запрос на получение свободных периодов предмета с id = {} с {} по {}", id, from, to);
+        return get(path, userId, parameters);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> searchItem(Long userId, String text, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "text", text,
                 "from", from,
                 "size", size
         );
         log.info("Получен запрос на поиск предмета по тексту - {}", text);
-        return get("/search" + "?text={text}&from={from}&size={size}", userId, parameters);
+        String path = "/search" + "?text={text}&from={from}&size={size}";
+        return responseCache.get(ResponseCache.ITEMS, path, userId, parameters, () -> get(path, userId, parameters));
+    }
+
+    // Популярность вещей растет с бронированиями и отзывами, которые сбрасывают ту же область кэша
+    public CompletableFuture<ResponseEntity<Object>> searchRanked(Long userId, String text, Boolean available,
+                                                                  Boolean withRequest, Integer from, Integer size) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("text", text);
+        parameters.put("from", from);
+        parameters.put("size", size);
+        StringBuilder path = new StringBuilder("/search/ranked?text={text}&from={from}&size={size}");
+        if (available != null) {
+            parameters.put("available", available);
+            path.append("&available={available}");
+        }
+        if (withRequest != null) {
+            parameters.put("withRequest", withRequest);
+            path.append("&withRequest={withRequest}");
+        }
+        log.info("Получен запрос на ранжированный поиск предмета по тексту - {}", text);
+        String uri = path.toString();
+        return responseCache.get(ResponseCache.ITEMS, uri, userId, parameters, () -> get(uri, userId, parameters));
+    }
+
+    // Подсказки меняются только при записи вещей, поэтому кэшируются в той же области, что и поиск
+    public CompletableFuture<ResponseEntity<Object>> suggest(Long userId, String prefix, Integer size) {
+        Map<String, Object> parameters = Map.of(
+                "prefix", prefix,
+                "size", size
+        );
+        log.info("Получен запрос подсказок по префиксу - {}", prefix);
+        String path = "/suggest?prefix={prefix}&size={size}";
+        return responseCache.get(ResponseCache.ITEMS, path, userId, parameters, () -> get(path, userId, parameters));
     }
 
-    public ResponseEntity<Object> addComment(Long userId, Long itemId, CommentDto commentDto) {
+    public CompletableFuture<ResponseEntity<Object>> addComment(Long userId, Long itemId, CommentDto commentDto) {
         log.info("Получен запрос на добавление комментария {} к предмету {} " +
                 "пользователем с id {}", commentDto, itemId, userId);
-        return post("/" + itemId + "/comment", userId, commentDto);
+        return responseCache.invalidateAfter(post("/" + itemId + "/comment", userId, commentDto),
+                ResponseCache.ITEMS);
     }
 }
\ No newline at end of file
@@ -2,12 +2,15 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.comment.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
 import javax.validation.Valid;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/items")
@@ -17,14 +20,14 @@ public class ItemController {
     private final ItemClient itemClient;
 
     @PostMapping()
-    protected ResponseEntity<Object> addItemGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
+    protected CompletableFuture<ResponseEntity<Object>> addItemGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
                                                     @Valid @RequestBody ItemDto itemDto) {
         log.info("Получен запрос на добавление предмета {} пользователем с id {}", itemDto, userId);
         return itemClient.addItem(userId, itemDto);
     }
 
     @PatchMapping("/{id}")
-    protected ResponseEntity<Object> updateItemGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
+    protected CompletableFuture<ResponseEntity<Object>> updateItemGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
                                                        @PathVariable Long id,
                                                        @RequestBody ItemDto itemDto) {
         log.info("Получен запрос на обновление предмета = {} пользователем с id = {}", itemDto, userId);
@@ -32,22 +35,46 @@ public class ItemController {
     }
 
     @GetMapping()
-    protected ResponseEntity<Object> getUserItemsGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public CompletableFuture<ResponseEntity<Object>> getUserItemsGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
                                                          @RequestParam(value = "from", defaultValue = "0") Integer from,
                                                          @RequestParam(value = "size", defaultValue = "10") Integer size) {
         log.info("Получен запрос на получение списка предметов пользователя с id = {}", userId);
         return itemClient.getUserItems(userId, from, size);
     }
 
+    @GetMapping("/suggest")
+    public CompletableFuture<ResponseEntity<Object>> suggestGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                    @RequestParam("prefix") String prefix,
+                                                    @RequestParam(value = "size", defaultValue = "10") Integer size) {
+        log.info("Получен запрос на подсказки названий по префиксу {}", prefix);
+        return itemClient.suggest(userId, prefix, size);
+    }
+
     @GetMapping("/{id}")
-    protected ResponseEntity<Object> getItemByIdGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public CompletableFuture<ResponseEntity<Object>> getItemByIdGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
                                                         @PathVariable Long id) {
         log.info("Получен запрос на получение предмета с id = {}", id);
         return itemClient.getItemById(userId, id);
     }
 
+    @GetMapping("/{id}/availability")
+    public CompletableFuture<ResponseEntity<Object>> getAvailabilityGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                            @PathVariable Long id,
+                                                            @RequestParam(value = "from", required = false)
+                                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                            LocalDateTime from,
+                                                            @RequestParam(value = "to", required = false)
+                                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                            LocalDateTime to) {
+        log.info("Получен запрос на получение свободных периодов предмета с id = {} с {} по {}", id, from, to);
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalStateException("Дата начала периода должна быть раньше даты завершения");
+        }
+        return itemClient.getAvailability(userId, id, from, to);
+    }
+
     @GetMapping("/search")
-    protected ResponseEntity<Object> searchItemGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public CompletableFuture<ResponseEntity<Object>> searchItemGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
                                                        @RequestParam("text") String text,
                                                        @RequestParam(value = "from", defaultValue = "0") Integer from,
                                                        @RequestParam(value = "size", defaultValue = "10") Integer size) {
@@ -55,8 +82,21 @@ public class ItemController {
         return itemClient.searchItem(userId, text, from, size);
     }
 
+    @GetMapping("/search/ranked")
+    protected CompletableFuture<ResponseEntity<Object>> searchRankedGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                         @RequestParam("text") String text,
+                                                         @RequestParam(value = "available", required = false)
+                                                         Boolean available,
+                                                         @RequestParam(value = "withRequest", required = false)
+                                                         Boolean withRequest,
+                                                         @RequestParam(value = "from", defaultValue = "0") Integer from,
+                                                         @RequestParam(value = "size", defaultValue = "10") Integer size) {
+        log.info("Получен запрос на ранжированный поиск предмета по тексту - {}", text);
+        return itemClient.searchRanked(userId, text, available, withRequest, from, size);
+    }
+
     @PostMapping("/{itemId}/comment")
-    protected ResponseEntity<Object> addCommentGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
+    protected CompletableFuture<ResponseEntity<Object>> addCommentGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
                                                        @PathVariable Long itemId,
                                                        @Valid @RequestBody CommentDto commentDto) {
         log.info("Получен запрос на добавление комментария {} к предмету {} " +
@@ -0,0 +1,89 @@
+package ru.practicum.shareit.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+@Component
+public class AdaptiveConcurrencyLimiter {
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThreshold;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Лимит хранится как double в битах long, чтобы менять его без блокировок
+    private final AtomicLong limit;
+    private final Counter rejected;
+    private final LongSupplier nanoClock;
+
+    @Autowired
+    public AdaptiveConcurrencyLimiter(LimitProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(LimitProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.enabled = properties.isAdaptiveConcurrencyEnabled();
+        this.minLimit = properties.getMinConcurrency();
+        this.maxLimit = properties.getMaxConcurrency();
+        this.latencyThreshold = properties.getLatencyThreshold().toNanos();
+        this.limit = new AtomicLong(Double.doubleToLongBits(maxLimit));
+        this.rejected = meterRegistry.counter("shareit-gateway.requests.rejected", "reason", "overload",
+                "route", "shareit-server");
+        Gauge.builder("shareit-gateway.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .register(meterRegistry);
+        Gauge.builder("shareit-gateway.concurrency.in-flight", inFlight, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    public boolean tryAcquire() {
+        if (!enabled) {
+            return true;
+        }
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Медленный или неудачный ответ уменьшает лимит в разы, быстрый увеличивает его на единицу за окно (AIMD)
+    public void release(long startNanos, boolean overloaded) {
+        if (!enabled) {
+            return;
+        }
+        int current = inFlight.getAndDecrement();
+        boolean slow = overloaded || nanoClock.getAsLong() - startNanos > latencyThreshold;
+        limit.updateAndGet(bits -> {
+            double value = Double.longBitsToDouble(bits);
+            if (slow) {
+                value = Math.max(minLimit, value * BACKOFF_RATIO);
+            } else if (current * 2 >= value) {
+                value = Math.min(maxLimit, value + 1 / value);
+            }
+            return Double.doubleToLongBits(value);
+        });
+    }
+
+    // Освобождает разрешение без замера задержки: длительность долгой выгрузки не говорит о перегрузке сервера
+    public void release(boolean overloaded) {
+        release(nanoClock.getAsLong(), overloaded);
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limit.get());
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.limit;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+@EnableConfigurationProperties(LimitProperties.class)
+public class LimitConfig implements WebMvcConfigurer {
+    private final LimitProperties properties;
+    private final RateLimitInterceptor rateLimitInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (properties.isRateLimitEnabled()) {
+            registry.addInterceptor(rateLimitInterceptor).excludePathPatterns("/actuator/**");
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.limit;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-gateway.limits")
+public class LimitProperties {
+    private boolean rateLimitEnabled = true;
+    private int ratePerSecond = 50;
+    private int burst = 100;
+    private long maxUsers = 100_000;
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    private boolean adaptiveConcurrencyEnabled = true;
+    private int minConcurrency = 10;
+    private int maxConcurrency = 200;
+    private Duration latencyThreshold = Duration.ofSeconds(1);
+}
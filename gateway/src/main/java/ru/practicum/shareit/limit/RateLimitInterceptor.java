@@ -0,0 +1,48 @@
+package ru.practicum.shareit.limit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.practicum.shareit.exception.TooManyRequestsException;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    private final UserRateLimiter rateLimiter;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Асинхронное завершение запроса повторно проходит через интерсептор, считаем запрос один раз
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        String userId = request.getHeader(USER_HEADER);
+        if (userId == null) {
+            return true;
+        }
+        long wait;
+        try {
+            wait = rateLimiter.tryAcquire(Long.parseLong(userId.trim()));
+        } catch (NumberFormatException e) {
+            return true;
+        }
+        if (wait > 0) {
+            Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            meterRegistry.counter("shareit-gateway.requests.rejected",
+                    "reason", "rate-limit", "route", route == null ? "unknown" : route.toString()).increment();
+            throw new TooManyRequestsException("Превышен лимит запросов пользователя " + userId,
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1)));
+        }
+        return true;
+    }
+}
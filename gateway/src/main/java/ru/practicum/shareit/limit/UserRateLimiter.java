@@ -0,0 +1,54 @@
+package ru.practicum.shareit.limit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+@Component
+public class UserRateLimiter {
+    private final LongSupplier nanoClock;
+    private final long origin;
+    private final long emissionInterval;
+    private final long burstTolerance;
+    // Для каждого пользователя хранится только время, когда его корзина снова станет полной (GCRA).
+    // Давно не приходившие пользователи вытесняются, поэтому память ограничена
+    private final Cache<Long, AtomicLong> buckets;
+
+    @Autowired
+    public UserRateLimiter(LimitProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    UserRateLimiter(LimitProperties properties, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.origin = nanoClock.getAsLong();
+        this.emissionInterval = TimeUnit.SECONDS.toNanos(1) / properties.getRatePerSecond();
+        this.burstTolerance = emissionInterval * (properties.getBurst() - 1);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxUsers())
+                .expireAfterAccess(properties.getIdleTimeout())
+                .build();
+    }
+
+    // Возвращает 0, если запрос разрешен, иначе сколько наносекунд нужно подождать
+    public long tryAcquire(long userId) {
+        AtomicLong arrival = buckets.get(userId, id -> new AtomicLong());
+        while (true) {
+            long now = nanoClock.getAsLong() - origin;
+            long current = arrival.get();
+            long start = Math.max(current, now);
+            long wait = start - now - burstTolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(current, start + emissionInterval)) {
+                return 0;
+            }
+        }
+    }
+}
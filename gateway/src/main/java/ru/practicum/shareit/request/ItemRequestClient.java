@@ -5,51 +5,67 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerCallGuard;
+import ru.practicum.shareit.client.ServerWebClientFactory;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.user.MissingUserCache;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
 public class ItemRequestClient extends BaseClient {
 
     private static final String API_PREFIX = "/requests";
+    private final ResponseCache responseCache;
+    private final MissingUserCache missingUsers;
 
     @Autowired
-    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                             ClientHttpRequestFactory requestFactory,
+                             ServerWebClientFactory webClientFactory, ResponseCache responseCache,
+                             ServerCallGuard serverCallGuard, MissingUserCache missingUsers) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                webClientFactory.create(serverUrl + API_PREFIX),
+                serverCallGuard
         );
+        this.responseCache = responseCache;
+        this.missingUsers = missingUsers;
     }
 
-    public ResponseEntity<Object> createItemRequest(Long userId, ItemRequestDto itemRequestDto) {
+    public CompletableFuture<ResponseEntity<Object>> createItemRequest(Long userId, ItemRequestDto itemRequestDto) {
         log.info("Получен запрос на создание Request пользователя {}", userId);
-        return post("", userId, itemRequestDto);
+        return missingUsers.guard(userId, () -> responseCache.invalidateAfter(post("", userId, itemRequestDto),
+                ResponseCache.REQUESTS));
     }
 
-    public ResponseEntity<Object> findAllByRequester(Long requesterId) {
+    public CompletableFuture<ResponseEntity<Object>> findAllByRequester(Long requesterId) {
         log.info("Получен запрос на вывод своих Requests {}", requesterId);
-        return get("", requesterId);
+        return missingUsers.guard(requesterId, () -> get("", requesterId));
     }
 
-    public ResponseEntity<Object> findById(Long userId, Long requestId) {
+    public CompletableFuture<ResponseEntity<Object>> findById(Long userId, Long requestId) {
         log.info("Получен запрос на вывод Request с id = {} пользователя с id = {}", requestId, userId);
-        return get("/" + requestId, userId);
+        return missingUsers.guard(userId, () -> get("/" + requestId, userId));
     }
 
-    public ResponseEntity<Object> findAll(Long userId, Integer from, Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> findAll(Long userId, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
         );
         log.info("Получен запрос на вывод списка Requests пользователя {}", userId);
-        return get("/all?from={from}&size={size}", userId, parameters);
+        String path = "/all?from={from}&size={size}";
+        return responseCache.get(ResponseCache.REQUESTS, path, userId, parameters, () -> get(path, userId, parameters));
     }
 }
@@ -10,6 +10,7 @@ import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import javax.validation.Valid;
 import javax.validation.ValidationException;
+import java.util.concurrent.CompletableFuture;
 
 @Controller
 @RequestMapping(path = "/requests")
@@ -20,26 +21,26 @@ public class ItemRequestController {
     private final ItemRequestClient requestClient;
 
     @PostMapping()
-    protected ResponseEntity<Object> createItemRequestGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
+    protected CompletableFuture<ResponseEntity<Object>> createItemRequestGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
                                                               @Valid @RequestBody ItemRequestDto itemRequestDto) {
         log.info("Получен запрос на создание Request пользователя {}", userId);
         return requestClient.createItemRequest(userId, itemRequestDto);
     }
 
     @GetMapping()
-    protected ResponseEntity<Object> findAllByRequesterGateWay(@RequestHeader("X-Sharer-User-Id") Long requesterId) {
+    public CompletableFuture<ResponseEntity<Object>> findAllByRequesterGateWay(@RequestHeader("X-Sharer-User-Id") Long requesterId) {
         log.info("Получен запрос на вывод своих Requests {}", requesterId);
         return requestClient.findAllByRequester(requesterId);
     }
 
     @GetMapping("/{requestId}")
-    protected ResponseEntity<Object> getItemRequestGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public CompletableFuture<ResponseEntity<Object>> getItemRequestGateWay(@RequestHeader("X-Sharer-User-Id") Long userId,
                                                            @PathVariable Long requestId) {
         return requestClient.findById(userId, requestId);
     }
 
     @GetMapping("/all")
-    protected ResponseEntity<Object> findAllGateWay(@RequestHeader("X-Sharer-User-Id") Long idUser,
+    public CompletableFuture<ResponseEntity<Object>> findAllGateWay(@RequestHeader("X-Sharer-User-Id") Long idUser,
                                                     @RequestParam(value = "from", defaultValue = "0")  Integer from,
                                                     @RequestParam(value = "size", defaultValue = "10") Integer size)
             throws ValidationException {
@@ -0,0 +1,116 @@
+package ru.practicum.shareit.user;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+@Component
+public class MissingUserCache {
+    // Сервер помечает этим заголовком 404, вызванные отсутствием пользователя
+    // (UserNotFoundException.HEADER и ENTITY на сервере)
+    public static final String HEADER = "X-Missing-Entity";
+    public static final String ENTITY = "user";
+
+    private final Cache<Long, Boolean> missingUsers;
+    // Первый ответ сервера об отсутствующем пользователе. Отказ повторяет его, а не собирает свой,
+    // поэтому статус, заголовки и тело не расходятся с сервером
+    private final AtomicReference<ResponseEntity<Object>> notFound = new AtomicReference<>();
+    private final Counter rejected;
+    private final ObjectMapper objectMapper;
+
+    public MissingUserCache(@Value("${shareit-gateway.missing-users.max-size:100000}") long maxSize,
+                            @Value("${shareit-gateway.missing-users.ttl:1m}") Duration ttl,
+                            MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.missingUsers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, missingUsers, "missing-users");
+        this.rejected = meterRegistry.counter("shareit-gateway.requests.rejected", "reason", "missing-user",
+                "route", "shareit-server");
+    }
+
+    // Применяется только к запросам, для которых сервер первым делом проверяет существование пользователя.
+    // Пока сервер ни разу не ответил об отсутствующем пользователе, повторять нечего и запрос уходит на сервер
+    public CompletableFuture<ResponseEntity<Object>> guard(Long userId,
+                                                           Supplier<CompletableFuture<ResponseEntity<Object>>> call) {
+        ResponseEntity<Object> rejection = notFound.get();
+        if (userId != null && rejection != null && missingUsers.getIfPresent(userId) != null) {
+            rejected.increment();
+            return CompletableFuture.completedFuture(rejection);
+        }
+        return call.get().thenApply(response -> {
+            if (userId != null && response.getStatusCode() == HttpStatus.NOT_FOUND
+                    && ENTITY.equals(response.getHeaders().getFirst(HEADER))) {
+                notFound.compareAndSet(null, replayable(response));
+                missingUsers.put(userId, Boolean.TRUE);
+            }
+            return response;
+        });
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> markMissingAfter(Long userId,
+                                                                      CompletableFuture<ResponseEntity<Object>> call) {
+        return call.thenApply(response -> {
+            if (response.getStatusCode().is2xxSuccessful()) {
+                missingUsers.put(userId, Boolean.TRUE);
+            }
+            return response;
+        });
+    }
+
+    // Идентификатор нового пользователя мог раньше считаться отсутствующим, сбрасывается только он.
+    // Если идентификатор из ответа прочитать не удалось, сбрасываются все
+    public CompletableFuture<ResponseEntity<Object>> resetAfter(CompletableFuture<ResponseEntity<Object>> call) {
+        return call.thenApply(response -> {
+            if (response.getStatusCode().is2xxSuccessful()) {
+                Long id = createdId(response.getBody());
+                if (id != null) {
+                    missingUsers.invalidate(id);
+                } else {
+                    missingUsers.invalidateAll();
+                }
+            }
+            return response;
+        });
+    }
+
+    // Дата ответа относится к исходному запросу, остальное повторяется как есть
+    private static ResponseEntity<Object> replayable(ResponseEntity<Object> response) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(response.getHeaders());
+        headers.remove(HttpHeaders.DATE);
+        return ResponseEntity.status(response.getStatusCode()).headers(headers).body(response.getBody());
+    }
+
+    @Nullable
+    private Long createdId(@Nullable Object body) {
+        if (!(body instanceof byte[])) {
+            return null;
+        }
+        try {
+            JsonNode id = objectMapper.readTree((byte[]) body).get("id");
+            return id != null && id.canConvertToLong() ? id.asLong() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
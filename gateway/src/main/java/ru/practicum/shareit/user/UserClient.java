@@ -5,48 +5,64 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerCallGuard;
+import ru.practicum.shareit.client.ServerWebClientFactory;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
 @Service
 public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
+    private final ResponseCache responseCache;
+    private final MissingUserCache missingUsers;
 
     @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      ClientHttpRequestFactory requestFactory,
+                      ServerWebClientFactory webClientFactory, ResponseCache responseCache,
+                      ServerCallGuard serverCallGuard, MissingUserCache missingUsers) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                webClientFactory.create(serverUrl + API_PREFIX),
+                serverCallGuard
         );
+        this.responseCache = responseCache;
+        this.missingUsers = missingUsers;
     }
 
-    public ResponseEntity<Object> postUser(UserDto userDto) {
+    public CompletableFuture<ResponseEntity<Object>> postUser(UserDto userDto) {
         log.info("UserClient.createUser, userDto = {} ", userDto);
-        return post("", userDto);
+        return missingUsers.resetAfter(post("", userDto));
     }
 
-    public ResponseEntity<Object> getUserById(Long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getUserById(Long userId) {
         log.info("UserClient.getUser user id = {} ", userId);
-        return get("/" + userId, userId);
+        return missingUsers.guard(userId, () -> get("/" + userId, userId));
     }
 
-    public ResponseEntity<Object> patchUser(UserDto userDto, Long userId) {
+    public CompletableFuture<ResponseEntity<Object>> patchUser(UserDto userDto, Long userId) {
         log.info("UserClient.updateUser user id = {}, userDto = {} ", userId, userDto);
-        return patch("/" + userId, userDto);
+        return missingUsers.guard(userId, () -> responseCache.invalidateAfter(patch("/" + userId, userDto),
+                ResponseCache.ITEMS, ResponseCache.REQUESTS));
     }
 
-    public ResponseEntity<Object> deleteUserById(Long userId) {
+    public CompletableFuture<ResponseEntity<Object>> deleteUserById(Long userId) {
         log.info("UserClient.deleteUser user id = {} ", userId);
-        return delete("/" + userId, userId);
+        return missingUsers.guard(userId, () -> missingUsers.markMissingAfter(userId,
+                responseCache.invalidateAfter(delete("/" + userId, userId), ResponseCache.ITEMS, ResponseCache.REQUESTS)));
     }
 
-    public ResponseEntity<Object> getAllUser() {
+    public CompletableFuture<ResponseEntity<Object>> getAllUser() {
         log.info("UserClient.getAllUser");
         return get("");
     }
@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import javax.validation.Valid;
+import java.util.concurrent.CompletableFuture;
 
 @Controller
 @RequiredArgsConstructor
@@ -18,35 +19,35 @@ public class UserController {
     private final UserClient userClient;
 
     @PostMapping()
-    public ResponseEntity<Object> postUserGateway(@Valid @RequestBody UserDto userDto) {
+    public CompletableFuture<ResponseEntity<Object>> postUserGateway(@Valid @RequestBody UserDto userDto) {
         log.info("create user, userDto {}", userDto);
         return userClient.postUser(userDto);
     }
 
     @GetMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<Object>  getUserByIdGateWay(@PathVariable Long id) {
+    public CompletableFuture<ResponseEntity<Object>>  getUserByIdGateWay(@PathVariable Long id) {
         log.info("UserController.getUserGateWay Get user id = {} ", id);
         return userClient.getUserById(id);
     }
 
     @PatchMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<Object> patchUserGateWay(@RequestBody UserDto userDto, @PathVariable Long id) {
+    public CompletableFuture<ResponseEntity<Object>> patchUserGateWay(@RequestBody UserDto userDto, @PathVariable Long id) {
         log.info("UserController.updateUserGateWay userDto Email = {}, Name = {}", userDto.getEmail(), userDto.getName());
         return userClient.patchUser(userDto, id);
     }
 
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<Object> deleteUserByIdGateway(@PathVariable Long id) {
+    public CompletableFuture<ResponseEntity<Object>> deleteUserByIdGateway(@PathVariable Long id) {
         log.info("UserController.deleteUserGateway user id = {} ", id);
         return userClient.deleteUserById(id);
     }
 
     @GetMapping()
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<Object> getAllUserGateWay() {
+    public CompletableFuture<ResponseEntity<Object>> getAllUserGateWay() {
         log.info("UserController.getUsersGateWay");
         return userClient.getAllUser();
     }
@@ -0,0 +1,133 @@
+package ru.practicum.shareit.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.validation.beanvalidation.MethodValidationInterceptor;
+import ru.practicum.shareit.booking.BookingClient;
+import ru.practicum.shareit.booking.BookingController;
+import ru.practicum.shareit.client.HttpClientProperties;
+import ru.practicum.shareit.exception.ErrorHandler;
+import ru.practicum.shareit.item.ItemController;
+import ru.practicum.shareit.limit.LimitProperties;
+import ru.practicum.shareit.limit.UserRateLimiter;
+import ru.practicum.shareit.request.ItemRequestController;
+import ru.practicum.shareit.user.UserController;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BatchControllerTest {
+    private final ItemController itemController = mock(ItemController.class);
+    private final BookingClient bookingClient = mock(BookingClient.class);
+    private final UserController userController = mock(UserController.class);
+    private final UserRateLimiter rateLimiter = mock(UserRateLimiter.class);
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        // Проверка параметров контроллера бронирований работает так же, как в контексте Spring: через прокси
+        ProxyFactory proxyFactory = new ProxyFactory(new BookingController(bookingClient));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new MethodValidationInterceptor());
+        BatchRouter router = new BatchRouter(itemController, (BookingController) proxyFactory.getProxy(),
+                mock(ItemRequestController.class), userController);
+        HttpClientProperties httpClientProperties = new HttpClientProperties();
+        httpClientProperties.setMode(HttpClientProperties.Mode.NON_BLOCKING);
+        BatchController controller = new BatchController(router, rateLimiter, new LimitProperties(),
+                httpClientProperties, new ObjectMapper(), new ErrorHandler(), 1, 1);
+        mvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new ErrorHandler())
+                .build();
+    }
+
+    @Test
+    void mixedSubResultsTest() throws Exception {
+        when(itemController.getItemByIdGateWay(1L, 1L)).thenReturn(ok("{\"id\":1}"));
+        when(itemController.getItemByIdGateWay(1L, 2L)).thenReturn(CompletableFuture.completedFuture(
+                ResponseEntity.status(HttpStatus.NOT_FOUND).body(bytes("{\"error\":\"Товар не найден\"}"))));
+        when(rateLimiter.tryAcquire(anyLong())).thenReturn(0L, 0L, 0L, 1L);
+
+        perform("[{\"id\":\"item\",\"path\":\"/items/1\"},"
+                + "{\"id\":\"missing\",\"path\":\"/items/2\"},"
+                + "{\"id\":\"unsupported\",\"path\":\"/comments/1\"},"
+                + "{\"id\":\"broken\",\"path\":\"/items/abc\"},"
+                + "{\"id\":\"limited\",\"path\":\"/users\"}]")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(5)))
+                .andExpect(jsonPath("$[0].id").value("item"))
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[0].body.id").value(1))
+                .andExpect(jsonPath("$[1].status").value(404))
+                .andExpect(jsonPath("$[1].body.error").value("Товар не найден"))
+                .andExpect(jsonPath("$[2].status").value(404))
+                .andExpect(jsonPath("$[2].body.Error").value("Запрос не поддерживается в пакете: /comments/1"))
+                .andExpect(jsonPath("$[3].status").value(400))
+                .andExpect(jsonPath("$[3].body.error").value("Некорректный идентификатор: abc"))
+                .andExpect(jsonPath("$[4].status").value(429))
+                .andExpect(jsonPath("$[4].headers." + HttpHeaders.RETRY_AFTER).value("1"))
+                .andExpect(jsonPath("$[4].body.error").value("Превышен лимит запросов пользователя 1"));
+        verifyNoInteractions(userController);
+    }
+
+    @Test
+    void queryValuesAreFormDecodedTest() throws Exception {
+        when(itemController.searchItemGateWay(1L, "дрель ударная+", 0, 5)).thenReturn(ok("[]"));
+
+        perform("[{\"path\":\"/items/search?text=%D0%B4%D1%80%D0%B5%D0%BB%D1%8C+ударная%2B&size=5\"}]")
+                .andExpect(jsonPath("$[0].id").value("0"))
+                .andExpect(jsonPath("$[0].status").value(200));
+        verify(itemController).searchItemGateWay(1L, "дрель ударная+", 0, 5);
+    }
+
+    @Test
+    void subRequestsPassControllerValidationTest() throws Exception {
+        perform("[{\"path\":\"/bookings?size=0\"},{\"path\":\"/bookings/owner?state=UNKNOWN\"}]")
+                .andExpect(jsonPath("$[0].status").value(400))
+                .andExpect(jsonPath("$[0].body.error", containsString("size")))
+                .andExpect(jsonPath("$[1].status").value(400))
+                .andExpect(jsonPath("$[1].body.error").value("Unknown state: UNSUPPORTED_STATUS"));
+        verifyNoInteractions(bookingClient);
+    }
+
+    private ResultActions perform(String requests) throws Exception {
+        MvcResult result = mvc.perform(post("/batch")
+                        .header("X-Sharer-User-Id", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .content(requests))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mvc.perform(asyncDispatch(result));
+    }
+
+    private static CompletableFuture<ResponseEntity<Object>> ok(String body) {
+        return CompletableFuture.completedFuture(ResponseEntity.ok(bytes(body)));
+    }
+
+    private static byte[] bytes(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+}
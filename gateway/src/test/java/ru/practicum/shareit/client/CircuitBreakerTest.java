@@ -0,0 +1,52 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CircuitBreakerTest {
+
+    @Test
+    void staleResultDoesNotDecideHalfOpenTrialTest() {
+        ResilienceProperties properties = new ResilienceProperties();
+        properties.setSlidingWindow(4);
+        properties.setMinimumCalls(4);
+        properties.setOpenDuration(Duration.ZERO);
+        CircuitBreaker breaker = new CircuitBreaker(properties);
+
+        long stale = breaker.tryAcquire();
+        for (int i = 0; i < 4; i++) {
+            breaker.record(breaker.tryAcquire(), true);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        long trial = breaker.tryAcquire();
+        breaker.record(stale, false);
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+
+        breaker.record(trial, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void cancelledTrialFreesHalfOpenSlotTest() {
+        ResilienceProperties properties = new ResilienceProperties();
+        properties.setSlidingWindow(2);
+        properties.setMinimumCalls(2);
+        properties.setOpenDuration(Duration.ZERO);
+        CircuitBreaker breaker = new CircuitBreaker(properties);
+        breaker.record(breaker.tryAcquire(), true);
+        breaker.record(breaker.tryAcquire(), true);
+
+        breaker.cancel(breaker.tryAcquire());
+
+        long trial = breaker.tryAcquire();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.record(trial, true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
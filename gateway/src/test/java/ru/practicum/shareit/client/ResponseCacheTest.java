@@ -0,0 +1,303 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResponseCacheTest {
+    private static final int CALLERS = 8;
+
+    private final ResponseCacheProperties properties = new ResponseCacheProperties();
+    private final AtomicLong ticker = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        properties.setTtl(Duration.ofSeconds(30));
+        properties.setMaxWeight(DataSize.ofBytes(2048));
+        createCache();
+    }
+
+    @Test
+    void repeatedRequestIsServedFromCacheTest() {
+        get("/items/1", 1L, ok(100));
+        get("/items/1", 1L, ok(100));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void entriesAreBoundedByBodyBytesTest() {
+        for (int i = 0; i < 10; i++) {
+            get("/items/" + i, 1L, ok(400));
+        }
+        loads.set(0);
+
+        for (int i = 0; i < 10; i++) {
+            get("/items/" + i, 1L, ok(400));
+        }
+
+        // В 2048 байт помещается не больше трех ответов по 400 байт с накладными расходами
+        assertTrue(loads.get() >= 7);
+    }
+
+    @Test
+    void bodyLargerThanMaxWeightIsNotCachedTest() {
+        get("/items/1", 1L, ok(4096));
+        get("/items/1", 1L, ok(4096));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void entryExpiresAfterTtlTest() {
+        get("/items/1", 1L, ok(100));
+
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(29));
+        get("/items/1", 1L, ok(100));
+        assertEquals(1, loads.get());
+
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        get("/items/1", 1L, ok(100));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void noStoreResponseIsNotCachedTest() {
+        Supplier<CompletableFuture<ResponseEntity<Object>>> noStore = () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(ResponseEntity.ok()
+                    .cacheControl(CacheControl.noStore()).body(new byte[10]));
+        };
+
+        get("/items/1", 1L, noStore);
+        get("/items/1", 1L, noStore);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void errorResponseIsNotCachedTest() {
+        Supplier<CompletableFuture<ResponseEntity<Object>>> notFound = () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+        };
+
+        get("/items/1", 1L, notFound);
+        get("/items/1", 1L, notFound);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void responsesAreCachedPerUserTest() {
+        get("/items/1", 1L, ok(100));
+        get("/items/1", 2L, ok(100));
+        get("/items/1", 1L, ok(100));
+        get("/items/1", 2L, ok(100));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void responsesAreCachedPerParametersTest() {
+        cache.get(ResponseCache.ITEMS, "/items/search", 1L, Map.of("text", "дрель"), ok(100)).join();
+        cache.get(ResponseCache.ITEMS, "/items/search", 1L, Map.of("text", "пила"), ok(100)).join();
+        cache.get(ResponseCache.ITEMS, "/items/search", 1L, Map.of("text", "дрель"), ok(100)).join();
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidateDropsOnlyItsRegionTest() {
+        get("/items/1", 1L, ok(100));
+        cache.get(ResponseCache.REQUESTS, "/requests", 1L, null, ok(100)).join();
+
+        cache.invalidate(ResponseCache.ITEMS);
+        get("/items/1", 1L, ok(100));
+        cache.get(ResponseCache.REQUESTS, "/requests", 1L, null, ok(100)).join();
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void responseLoadedBeforeInvalidateIsNotCachedTest() {
+        CompletableFuture<ResponseEntity<Object>> upstream = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<Object>> stale = get("/items/1", 1L, () -> {
+            loads.incrementAndGet();
+            return upstream;
+        });
+
+        cache.invalidate(ResponseCache.ITEMS);
+        upstream.complete(ResponseEntity.ok(new byte[100]));
+        stale.join();
+
+        get("/items/1", 1L, ok(100));
+        get("/items/1", 1L, ok(100));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void disabledCacheAlwaysLoadsTest() {
+        properties.setEnabled(false);
+        createCache();
+
+        get("/items/1", 1L, ok(100));
+        get("/items/1", 1L, ok(100));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void concurrentIdenticalRequestsShareOneUpstreamCallTest() throws Exception {
+        properties.setEnabled(false);
+        createCache();
+        CountDownLatch release = new CountDownLatch(1);
+        ResponseEntity<Object> upstream = ResponseEntity.ok(new byte[10]);
+
+        List<Future<CompletableFuture<ResponseEntity<Object>>>> calls = getConcurrently(() -> {
+            loads.incrementAndGet();
+            await(release);
+            return CompletableFuture.completedFuture(upstream);
+        });
+        release.countDown();
+
+        for (Future<CompletableFuture<ResponseEntity<Object>>> call : calls) {
+            assertSame(upstream, call.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(CALLERS - 1, coalesced());
+
+        get("/items/1", 1L, ok(10));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void failedLeaderDoesNotPoisonLaterRequestsTest() throws Exception {
+        properties.setEnabled(false);
+        createCache();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<CompletableFuture<ResponseEntity<Object>>>> calls = getConcurrently(() -> {
+            loads.incrementAndGet();
+            await(release);
+            throw new IllegalStateException("Сервер недоступен");
+        });
+        release.countDown();
+
+        for (Future<CompletableFuture<ResponseEntity<Object>>> call : calls) {
+            CompletableFuture<ResponseEntity<Object>> response = call.get(5, TimeUnit.SECONDS);
+            CompletionException exception = assertThrows(CompletionException.class, response::join);
+            assertInstanceOf(IllegalStateException.class, exception.getCause());
+        }
+        assertEquals(1, loads.get());
+
+        CompletableFuture<ResponseEntity<Object>> retry = get("/items/1", 1L, ok(10));
+        assertEquals(HttpStatus.OK, retry.join().getStatusCode());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void failedUpstreamFutureIsNotSharedWithLaterRequestsTest() {
+        properties.setEnabled(false);
+        createCache();
+        CompletableFuture<ResponseEntity<Object>> upstream = new CompletableFuture<>();
+
+        CompletableFuture<ResponseEntity<Object>> leader = get("/items/1", 1L, () -> {
+            loads.incrementAndGet();
+            return upstream;
+        });
+        CompletableFuture<ResponseEntity<Object>> waiter = get("/items/1", 1L, ok(10));
+        upstream.completeExceptionally(new IllegalStateException("Сервер недоступен"));
+
+        assertThrows(CompletionException.class, leader::join);
+        assertThrows(CompletionException.class, waiter::join);
+        assertEquals(HttpStatus.OK, get("/items/1", 1L, ok(10)).join().getStatusCode());
+        assertEquals(2, loads.get());
+    }
+
+    // Первый вызов блокируется в загрузчике, остальные должны присоединиться к нему до снятия блокировки
+    private List<Future<CompletableFuture<ResponseEntity<Object>>>> getConcurrently(
+            Supplier<CompletableFuture<ResponseEntity<Object>>> loader) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<CompletableFuture<ResponseEntity<Object>>>> calls = new ArrayList<>();
+            calls.add(executor.submit(() -> cache.get(ResponseCache.ITEMS, "/items/1", 1L, null, loader)));
+            while (loads.get() == 0) {
+                Thread.onSpinWait();
+            }
+            for (int i = 1; i < CALLERS; i++) {
+                calls.add(executor.submit(() -> cache.get(ResponseCache.ITEMS, "/items/1", 1L, null, loader)));
+            }
+            for (int i = 1; i < CALLERS; i++) {
+                assertFalse(calls.get(i).get(5, TimeUnit.SECONDS).isDone());
+            }
+            assertFalse(calls.get(0).isDone());
+            assertEquals(CALLERS - 1, coalesced());
+            return calls;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private double coalesced() {
+        return meterRegistry.get("shareit-server.requests.coalesced").counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void createCache() {
+        cache = new ResponseCache(properties, meterRegistry, ticker::get, Runnable::run);
+    }
+
+    private CompletableFuture<ResponseEntity<Object>> get(String path, Long userId,
+                                                          Supplier<CompletableFuture<ResponseEntity<Object>>> loader) {
+        CompletableFuture<ResponseEntity<Object>> response = cache.get(ResponseCache.ITEMS, path, userId, null,
+                loader);
+        if (response.isDone()) {
+            response.join();
+        }
+        return response;
+    }
+
+    private Supplier<CompletableFuture<ResponseEntity<Object>>> ok(int size) {
+        return () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(ResponseEntity.ok(new byte[size]));
+        };
+    }
+}
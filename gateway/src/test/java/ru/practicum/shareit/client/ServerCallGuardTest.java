@@ -0,0 +1,218 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.exception.ServerOverloadedException;
+import ru.practicum.shareit.limit.AdaptiveConcurrencyLimiter;
+import ru.practicum.shareit.limit.LimitProperties;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ServerCallGuardTest {
+    private final MockWebServer server = new MockWebServer();
+    private final ResilienceProperties properties = new ResilienceProperties();
+    private ServerCallGuard guard;
+    private TestClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server.start();
+        properties.setSlidingWindow(4);
+        properties.setMinimumCalls(100);
+        properties.setFailureRateThreshold(50);
+        properties.setOpenDuration(Duration.ofMillis(200));
+        properties.setMaxAttempts(3);
+        properties.setBackoff(Duration.ofMillis(1));
+        properties.setMaxBackoff(Duration.ofMillis(5));
+        properties.setRetryThreads(1);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (guard != null) {
+            guard.close();
+        }
+        server.shutdown();
+    }
+
+    @Test
+    void getIsRetriedUpToMaxAttemptsTest() {
+        createClient();
+        enqueue(HttpStatus.SERVICE_UNAVAILABLE, 5);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, client.fetch("/items").getStatusCode());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    void getSucceedsOnRetryTest() {
+        createClient();
+        enqueue(HttpStatus.BAD_GATEWAY, 1);
+        enqueue(HttpStatus.OK, 1);
+
+        assertEquals(HttpStatus.OK, client.fetch("/items").getStatusCode());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void clientErrorsAreNotRetriedTest() {
+        createClient();
+        enqueue(HttpStatus.NOT_FOUND, 1);
+
+        assertEquals(HttpStatus.NOT_FOUND, client.fetch("/items/1").getStatusCode());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void postAndPatchAreNeverRetriedTest() {
+        createClient();
+        enqueue(HttpStatus.SERVICE_UNAVAILABLE, 4);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, client.create("/items").getStatusCode());
+        assertEquals(1, server.getRequestCount());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, client.update("/items/1").getStatusCode());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void exhaustedBudgetStopsRetriesTest() {
+        properties.setRetryRatio(0);
+        properties.setMaxRetryBalance(2);
+        createClient();
+        enqueue(HttpStatus.SERVICE_UNAVAILABLE, 5);
+
+        client.fetch("/items");
+        assertEquals(3, server.getRequestCount());
+        client.fetch("/items");
+        assertEquals(4, server.getRequestCount());
+    }
+
+    @Test
+    void breakerOpensAfterFailureThresholdTest() {
+        properties.setMinimumCalls(4);
+        properties.setMaxAttempts(1);
+        createClient();
+        enqueue(HttpStatus.SERVICE_UNAVAILABLE, 4);
+
+        for (int i = 0; i < 4; i++) {
+            client.fetch("/items/" + i);
+        }
+        CompletionException e = assertThrows(CompletionException.class, () -> client.fetch("/items/5"));
+
+        assertInstanceOf(ServerOverloadedException.class, e.getCause());
+        assertEquals(4, server.getRequestCount());
+    }
+
+    @Test
+    void halfOpenTrialClosesBreakerTest() throws InterruptedException {
+        properties.setMinimumCalls(4);
+        properties.setMaxAttempts(1);
+        createClient();
+        enqueue(HttpStatus.SERVICE_UNAVAILABLE, 4);
+        for (int i = 0; i < 4; i++) {
+            client.fetch("/items");
+        }
+
+        Thread.sleep(properties.getOpenDuration().toMillis() + 50);
+        enqueue(HttpStatus.OK, 2);
+
+        assertEquals(HttpStatus.OK, client.fetch("/items").getStatusCode());
+        assertEquals(HttpStatus.OK, client.fetch("/items").getStatusCode());
+        assertEquals(6, server.getRequestCount());
+    }
+
+    @Test
+    void failedHalfOpenTrialReopensBreakerTest() throws InterruptedException {
+        properties.setMinimumCalls(4);
+        properties.setMaxAttempts(1);
+        createClient();
+        enqueue(HttpStatus.SERVICE_UNAVAILABLE, 5);
+        for (int i = 0; i < 4; i++) {
+            client.fetch("/items");
+        }
+
+        Thread.sleep(properties.getOpenDuration().toMillis() + 50);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, client.fetch("/items").getStatusCode());
+        assertThrows(CompletionException.class, () -> client.fetch("/items"));
+        assertEquals(5, server.getRequestCount());
+    }
+
+    @Test
+    void openBreakerRejectsExportTest() {
+        properties.setMinimumCalls(4);
+        createClient();
+        enqueue(HttpStatus.SERVICE_UNAVAILABLE, 4);
+
+        for (int i = 0; i < 4; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            client.export("/bookings/export", response);
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), response.getStatus());
+        }
+
+        assertThrows(ServerOverloadedException.class,
+                () -> client.export("/bookings/export", new MockHttpServletResponse()));
+        // Выгрузка не повторяется, но ее неудачи учитываются автоматом
+        assertEquals(4, server.getRequestCount());
+    }
+
+    private void createClient() {
+        LimitProperties limitProperties = new LimitProperties();
+        limitProperties.setAdaptiveConcurrencyEnabled(false);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        guard = new ServerCallGuard(new AdaptiveConcurrencyLimiter(limitProperties, meterRegistry), properties,
+                meterRegistry);
+        client = new TestClient(server.url("/").toString(), guard);
+    }
+
+    private void enqueue(HttpStatus status, int times) {
+        for (int i = 0; i < times; i++) {
+            server.enqueue(new MockResponse().setResponseCode(status.value())
+                    .setHeader("Content-Type", "application/json")
+                    .setBody("{}"));
+        }
+    }
+
+    private static class TestClient extends BaseClient {
+        TestClient(String serverUrl, ServerCallGuard guard) {
+            super(new RestTemplateBuilder()
+                            .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl))
+                            .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                            .build(),
+                    null, guard);
+        }
+
+        ResponseEntity<Object> fetch(String path) {
+            return get(path, 1L).join();
+        }
+
+        ResponseEntity<Object> create(String path) {
+            return post(path, 1L, Map.of()).join();
+        }
+
+        ResponseEntity<Object> update(String path) {
+            return patch(path, 1L, Map.of()).join();
+        }
+
+        void export(String path, MockHttpServletResponse response) {
+            stream(path, 1L, response);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package ru.practicum.shareit.limit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveConcurrencyLimiterTest {
+    private final AtomicLong clock = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        LimitProperties properties = new LimitProperties();
+        properties.setMinConcurrency(2);
+        properties.setMaxConcurrency(10);
+        properties.setLatencyThreshold(Duration.ofMillis(100));
+        limiter = new AdaptiveConcurrencyLimiter(properties, meterRegistry, clock::get);
+    }
+
+    @Test
+    void requestsOverLimitAreRejectedTest() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1.0, meterRegistry.get("shareit-gateway.requests.rejected").counter().count());
+    }
+
+    @Test
+    void overloadedResponseDecreasesLimitMultiplicativelyTest() {
+        call(0, true);
+        assertEquals(9, limiter.getLimit());
+
+        call(0, true);
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    void slowResponseDecreasesLimitTest() {
+        call(TimeUnit.MILLISECONDS.toNanos(150), false);
+
+        assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    void untimedReleaseIgnoresLatencyTest() {
+        assertTrue(limiter.tryAcquire());
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(5));
+        limiter.release(false);
+
+        assertEquals(10, limiter.getLimit());
+
+        assertTrue(limiter.tryAcquire());
+        limiter.release(true);
+
+        assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    void limitDoesNotDropBelowMinimumTest() {
+        for (int i = 0; i < 100; i++) {
+            call(0, true);
+        }
+
+        assertEquals(2, limiter.getLimit());
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    void fastResponsesUnderLoadIncreaseLimitAdditivelyUpToMaximumTest() {
+        for (int i = 0; i < 100; i++) {
+            call(0, true);
+        }
+
+        int previous = limiter.getLimit();
+        for (int window = 0; window < 100; window++) {
+            int acquired = fill();
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(clock.get(), false);
+            }
+            int current = limiter.getLimit();
+            assertTrue(current >= previous && current <= previous + 1);
+            previous = current;
+        }
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void fastResponsesWithoutLoadDoNotIncreaseLimitTest() {
+        for (int i = 0; i < 100; i++) {
+            call(0, true);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            call(0, false);
+        }
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    private void call(long latency, boolean overloaded) {
+        assertTrue(limiter.tryAcquire());
+        long start = clock.get();
+        clock.addAndGet(latency);
+        limiter.release(start, overloaded);
+    }
+
+    private int fill() {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        return acquired;
+    }
+}
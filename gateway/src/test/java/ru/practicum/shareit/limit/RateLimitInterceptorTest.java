@@ -0,0 +1,94 @@
+package ru.practicum.shareit.limit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.shareit.exception.ErrorHandler;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class RateLimitInterceptorTest {
+    private final AtomicLong clock = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        LimitProperties properties = new LimitProperties();
+        properties.setRatePerSecond(1);
+        properties.setBurst(1);
+        UserRateLimiter rateLimiter = new UserRateLimiter(properties, clock::get);
+        mvc = MockMvcBuilders.standaloneSetup(new TestController())
+                .addInterceptors(new RateLimitInterceptor(rateLimiter, meterRegistry))
+                .setControllerAdvice(new ErrorHandler())
+                .build();
+    }
+
+    @Test
+    void asyncRequestIsCountedOnceTest() throws Exception {
+        MvcResult result = mvc.perform(get("/things").header("X-Sharer-User-Id", 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("ok"));
+    }
+
+    @Test
+    void exceededLimitReturns429WithRetryAfterTest() throws Exception {
+        MvcResult result = mvc.perform(get("/things").header("X-Sharer-User-Id", 1)).andReturn();
+        mvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        mvc.perform(get("/things").header("X-Sharer-User-Id", 1))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+        assertEquals(1.0, meterRegistry.get("shareit-gateway.requests.rejected")
+                .tag("reason", "rate-limit").tag("route", "/things").counter().count());
+    }
+
+    @Test
+    void requestIsAllowedAgainAfterRefillTest() throws Exception {
+        MvcResult result = mvc.perform(get("/things").header("X-Sharer-User-Id", 1)).andReturn();
+        mvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        clock.addAndGet(1_000_000_000L);
+
+        result = mvc.perform(get("/things").header("X-Sharer-User-Id", 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+    }
+
+    @Test
+    void requestWithoutUserIsNotLimitedTest() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            MvcResult result = mvc.perform(get("/things")).andReturn();
+            mvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+        }
+    }
+
+    @RestController
+    static class TestController {
+        @GetMapping("/things")
+        public CompletableFuture<String> getThings() {
+            return CompletableFuture.completedFuture("ok");
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package ru.practicum.shareit.limit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class UserRateLimiterTest {
+    private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+    private UserRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        LimitProperties properties = new LimitProperties();
+        properties.setRatePerSecond(10);
+        properties.setBurst(3);
+        limiter = new UserRateLimiter(properties, clock::get);
+    }
+
+    @Test
+    void burstIsAllowedThenRejectedTest() {
+        assertEquals(0, limiter.tryAcquire(1L));
+        assertEquals(0, limiter.tryAcquire(1L));
+        assertEquals(0, limiter.tryAcquire(1L));
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), limiter.tryAcquire(1L));
+    }
+
+    @Test
+    void rejectedRequestDoesNotConsumeQuotaTest() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(1L);
+        }
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), limiter.tryAcquire(1L));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), limiter.tryAcquire(1L));
+    }
+
+    @Test
+    void quotaIsRefilledAtConfiguredRateTest() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(1L);
+        }
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(40));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(60), limiter.tryAcquire(1L));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(60));
+        assertEquals(0, limiter.tryAcquire(1L));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), limiter.tryAcquire(1L));
+    }
+
+    @Test
+    void idleUserGetsFullBurstBackTest() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(1L);
+        }
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire(1L));
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), limiter.tryAcquire(1L));
+    }
+
+    @Test
+    void usersHaveSeparateQuotasTest() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(1L);
+        }
+
+        assertEquals(0, limiter.tryAcquire(2L));
+    }
+}
@@ -0,0 +1,136 @@
+package ru.practicum.shareit.user;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MissingUserCacheTest {
+    // Тело отличается от сообщения сервера по умолчанию: отказ должен повторять полученный ответ, а не свой текст
+    private static final String MISSING_USER_BODY = "{\"Error\":\"Нет пользователя\"}";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MissingUserCache cache = new MissingUserCache(100, Duration.ofMinutes(1), meterRegistry,
+            new ObjectMapper());
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void missingUserResponseIsRememberedTest() {
+        assertEquals(HttpStatus.NOT_FOUND, guard(1L, missingUser()).getStatusCode());
+
+        ResponseEntity<Object> response = guard(1L, ok("{}"));
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals(MissingUserCache.ENTITY, response.getHeaders().getFirst(MissingUserCache.HEADER));
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertEquals(MISSING_USER_BODY, new String((byte[]) response.getBody(), StandardCharsets.UTF_8));
+        assertEquals(1, calls.get());
+        assertEquals(1.0, meterRegistry.get("shareit-gateway.requests.rejected")
+                .tag("reason", "missing-user").counter().count());
+    }
+
+    @Test
+    void otherNotFoundResponsesAreNotRememberedTest() {
+        guard(1L, () -> respond(ResponseEntity.status(HttpStatus.NOT_FOUND).build()));
+        guard(1L, () -> respond(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .header(MissingUserCache.HEADER, "item").build()));
+
+        assertEquals(HttpStatus.OK, guard(1L, ok("{}")).getStatusCode());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void otherUsersAreNotRejectedTest() {
+        guard(1L, missingUser());
+
+        assertEquals(HttpStatus.OK, guard(2L, ok("{}")).getStatusCode());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void deletedUserIsMarkedMissingTest() {
+        guard(2L, missingUser());
+        cache.markMissingAfter(1L, CompletableFuture.completedFuture(ResponseEntity.ok().build())).join();
+
+        ResponseEntity<Object> response = guard(1L, ok("{}"));
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals(MISSING_USER_BODY, new String((byte[]) response.getBody(), StandardCharsets.UTF_8));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void deletedUserIsForwardedUntilServerResponseIsKnownTest() {
+        cache.markMissingAfter(1L, CompletableFuture.completedFuture(ResponseEntity.ok().build())).join();
+
+        assertEquals(HttpStatus.NOT_FOUND, guard(1L, missingUser()).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, guard(1L, ok("{}")).getStatusCode());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void failedDeleteDoesNotMarkUserTest() {
+        cache.markMissingAfter(1L, CompletableFuture.completedFuture(
+                ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build())).join();
+
+        assertEquals(HttpStatus.OK, guard(1L, ok("{}")).getStatusCode());
+    }
+
+    @Test
+    void createdUserIsResetTest() {
+        guard(1L, missingUser());
+        guard(2L, missingUser());
+
+        cache.resetAfter(CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CREATED)
+                .body((Object) "{\"id\":1,\"name\":\"user\"}".getBytes(StandardCharsets.UTF_8)))).join();
+
+        assertEquals(HttpStatus.OK, guard(1L, ok("{}")).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, guard(2L, ok("{}")).getStatusCode());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void unreadableCreatedUserResetsAllTest() {
+        guard(1L, missingUser());
+        guard(2L, missingUser());
+
+        cache.resetAfter(CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CREATED)
+                .body((Object) "не json".getBytes(StandardCharsets.UTF_8)))).join();
+
+        assertEquals(HttpStatus.OK, guard(1L, ok("{}")).getStatusCode());
+        assertEquals(HttpStatus.OK, guard(2L, ok("{}")).getStatusCode());
+        assertEquals(4, calls.get());
+    }
+
+    private ResponseEntity<Object> guard(Long userId, Supplier<CompletableFuture<ResponseEntity<Object>>> call) {
+        return cache.guard(userId, call).join();
+    }
+
+    private Supplier<CompletableFuture<ResponseEntity<Object>>> missingUser() {
+        return () -> respond(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .header(MissingUserCache.HEADER, MissingUserCache.ENTITY)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(MISSING_USER_BODY.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Supplier<CompletableFuture<ResponseEntity<Object>>> ok(String body) {
+        return () -> respond(ResponseEntity.ok(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private CompletableFuture<ResponseEntity<Object>> respond(ResponseEntity<?> response) {
+        calls.incrementAndGet();
+        @SuppressWarnings("unchecked")
+        ResponseEntity<Object> entity = (ResponseEntity<Object>) response;
+        return CompletableFuture.completedFuture(entity);
+    }
+}
@@ -0,0 +1,88 @@
+package ru.practicum.shareit.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemSearchIndex;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Первая страница поиска вещей тремя путями ItemServiceImpl: индекс в памяти с загрузкой найденных вещей по id,
+// like по таблице items (режим sql) и pg_trgm с рангом tsvector (режим fulltext).
+// База PostgreSQL заполняется заранее скриптом db/bench/items_dataset.sql, подключение задается переменными
+// окружения SPRING_DATASOURCE_*: они доходят до форка JMH
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ItemSearchBenchmark {
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 10);
+
+    // Частое слово из названия, слово из описания, редкий фрагмент md5 и запрос без совпадений
+    @Param({"перфор", "складн", "ab12", "пылесос"})
+    private String text;
+
+    private ConfigurableApplicationContext context;
+    private ItemSearchIndex index;
+    private ItemRepository itemRepository;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .properties("shareit.search.mode=index",
+                        "shareit.search.cache.enabled=false",
+                        "shareit.booking.phase-sweep.enabled=false",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.hibernate.show_sql=false",
+                        "logging.level.org.springframework.transaction.interceptor=INFO",
+                        "logging.level.org.springframework.orm.jpa.JpaTransactionManager=INFO")
+                .run();
+        index = context.getBean(ItemSearchIndex.class);
+        itemRepository = context.getBean(ItemRepository.class);
+        if (!index.isReady()) {
+            throw new IllegalStateException("Поисковый индекс не построен");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Item> index() {
+        List<Long> ids = index.search(text, 0, FIRST_PAGE.getPageSize());
+        return itemRepository.findAllById(ids);
+    }
+
+    @Benchmark
+    public List<Item> sql() {
+        return itemRepository.searchItem(ItemRepository.escapeLike(text), FIRST_PAGE).getContent();
+    }
+
+    @Benchmark
+    public List<Item> fullText() {
+        return itemRepository.searchItemFullText(text, ItemRepository.escapeLike(text), FIRST_PAGE);
+    }
+}
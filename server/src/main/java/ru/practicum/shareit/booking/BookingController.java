@@ -2,13 +2,25 @@ package ru.practicum.shareit.booking;
 
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingReturnDto;
 
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 
@@ -16,8 +28,13 @@ import java.util.List;
 @RequestMapping(path = "/bookings")
 @RequiredArgsConstructor
 @Slf4j
+@Validated
 public class BookingController {
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int MAX_BATCH_SIZE = 500;
+
     private final BookingService bookingService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public BookingReturnDto addBooking(@RequestHeader("X-Sharer-User-Id") Long userId,
@@ -26,6 +43,14 @@ public class BookingController {
         return bookingService.addBooking(bookingDto, userId);
     }
 
+    @PatchMapping("/batch")
+    public List<BookingDecisionResultDto> patchBookings(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                        @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE)
+                                                        List<@Valid BookingDecisionDto> decisions) {
+        log.info("Patch-запрос на изменение {} бронирований пользователем с id {}", decisions.size(), userId);
+        return bookingService.patchBookings(userId, decisions);
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingReturnDto patchBooking(@RequestHeader("X-Sharer-User-Id") Long userId,
                                          @PathVariable Long bookingId, @RequestParam boolean approved) {
@@ -40,22 +65,62 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingReturnDto> getUserBookings(
+    public ResponseEntity<List<BookingReturnDto>> getUserBookings(
                                   @RequestHeader("X-Sharer-User-Id") Long userID,
                                   @RequestParam(value = "from", defaultValue = "0") Integer from,
                                   @RequestParam(value = "size", defaultValue = "10") Integer size,
-                                  @RequestParam(required = false, defaultValue = "ALL") String state) {
+                                  @RequestParam(required = false, defaultValue = "ALL") String state,
+                                  @RequestParam(required = false) String cursor) {
         log.info("Get-запрос на получение списка бронирований пользователя с id {} и статусом {}", userID, state);
-        return bookingService.getUserBookingList(userID, from, size, state);
+        List<BookingReturnDto> bookings = cursor == null
+                ? bookingService.getUserBookingList(userID, from, size, state)
+                : bookingService.getUserBookingListAfter(userID, cursor, size, state);
+        return withNextCursor(bookings, size);
     }
 
     @GetMapping("/owner")
-    public List<BookingReturnDto> getOwnerBookings(
+    public ResponseEntity<List<BookingReturnDto>> getOwnerBookings(
                                   @RequestHeader("X-Sharer-User-Id") Long userID,
                                   @RequestParam(value = "from", defaultValue = "0") Integer from,
                                   @RequestParam(value = "size", defaultValue = "10") Integer size,
-                                  @RequestParam(required = false, defaultValue = "ALL") String state) {
+                                  @RequestParam(required = false, defaultValue = "ALL") String state,
+                                  @RequestParam(required = false) String cursor) {
         log.info("Get-запрос на получение списка бронирований пользователя с id {} и статусом {}", userID, state);
-        return bookingService.getOwnerBookingList(userID, from, size, state);
+        List<BookingReturnDto> bookings = cursor == null
+                ? bookingService.getOwnerBookingList(userID, from, size, state)
+                : bookingService.getOwnerBookingListAfter(userID, cursor, size, state);
+        return withNextCursor(bookings, size);
+    }
+
+    @GetMapping("/export")
+    public void exportOwnerBookings(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                    HttpServletResponse response) throws IOException {
+        log.info("Get-запрос на выгрузку истории бронирований владельца с id {}", userId);
+        bookingService.exportOwnerBookings(userId, booking -> writeLine(response, booking));
+        setNdjsonContentType(response);
+        response.flushBuffer();
+    }
+
+    private void writeLine(HttpServletResponse response, BookingReturnDto booking) {
+        try {
+            setNdjsonContentType(response);
+            response.getOutputStream().write(objectMapper.writeValueAsBytes(booking));
+            response.getOutputStream().write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Тип ответа выставляется только после проверок сервиса, иначе ошибка не сможет вернуться в виде JSON
+    private void setNdjsonContentType(HttpServletResponse response) {
+        if (response.getContentType() == null) {
+            response.setContentType(NDJSON);
+        }
+    }
+
+    private ResponseEntity<List<BookingReturnDto>> withNextCursor(List<BookingReturnDto> bookings, int size) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        BookingCursor.next(bookings, size).ifPresent(cursor -> response.header(BookingCursor.HEADER, cursor));
+        return response.body(bookings);
     }
 }
\ No newline at end of file
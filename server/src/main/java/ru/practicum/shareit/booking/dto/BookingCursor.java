@@ -0,0 +1,51 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.exception.EntityNotAvailableException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+@Getter
+@AllArgsConstructor
+public class BookingCursor {
+    // Курсор кодирует (start, id) последнего бронирования страницы, клиент передает его обратно как есть
+    public static final String HEADER = "X-Next-Cursor";
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime start;
+    private final Long id;
+
+    public static BookingCursor of(BookingReturnDto booking) {
+        return new BookingCursor(booking.getStart(), booking.getId());
+    }
+
+    public static Optional<String> next(List<BookingReturnDto> page, int size) {
+        if (page.isEmpty() || page.size() < size) {
+            return Optional.empty();
+        }
+        return Optional.of(of(page.get(page.size() - 1)).encode());
+    }
+
+    public String encode() {
+        String raw = start + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BookingCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new BookingCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new EntityNotAvailableException("Некорректный курсор: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class BookingDecisionResultDto {
+    private Long bookingId;
+    private BookingStatus status;
+    private String error;
+
+    public static BookingDecisionResultDto success(Long bookingId, BookingStatus status) {
+        return new BookingDecisionResultDto(bookingId, status, null);
+    }
+
+    public static BookingDecisionResultDto failure(Long bookingId, String error) {
+        return new BookingDecisionResultDto(bookingId, null, error);
+    }
+}
@@ -17,8 +17,8 @@ public class BookingMapper {
                 bookingDto.getStatus(),
                 booker,
                 item,
-                bookingDto.getStart(),
-                bookingDto.getEnd());
+                Booking.truncate(bookingDto.getStart()),
+                Booking.truncate(bookingDto.getEnd()));
     }
 
     public static BookingDto toBookingDto(Booking booking) {
@@ -19,4 +19,13 @@ public class BookingReturnDto {
     private ItemDto item;
     private LocalDateTime start;
     private LocalDateTime end;
+
+    public BookingReturnDto(Long id, BookingStatus status, Long bookerId, String bookerName, String bookerEmail,
+                            Long itemId, String itemName, String itemDescription, Boolean itemAvailable,
+                            Long itemRequestId, LocalDateTime start, LocalDateTime end) {
+        this(id, status,
+                UserDto.builder().id(bookerId).name(bookerName).email(bookerEmail).build(),
+                new ItemDto(itemId, itemName, itemDescription, itemAvailable, itemRequestId),
+                start, end);
+    }
 }
\ No newline at end of file
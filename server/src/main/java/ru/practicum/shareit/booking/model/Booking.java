@@ -5,6 +5,7 @@ import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 import javax.persistence.*;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 @Entity
 @NoArgsConstructor
@@ -32,5 +33,29 @@ public class Booking {
     private LocalDateTime start;
     @Column(name = "end_time")
     private LocalDateTime end;
+    // Фаза обновляется фоновым обходом. Списки CURRENT, PAST и FUTURE фильтруются только по ней,
+    // поэтому могут отставать от текущего времени на один интервал обхода (shareit.booking.phase-sweep.delay)
+    @Enumerated(value = EnumType.STRING)
+    @Column(name = "phase", nullable = false)
+    private BookingPhase phase;
+
+    public Booking(Long id, BookingStatus status, User booker, Item item, LocalDateTime start, LocalDateTime end) {
+        this(id, status, booker, item, start, end, null);
+    }
+
+    // Колонки timestamp хранят микросекунды, а LocalDateTime.now() дает наносекунды: без обрезки сохраненная
+    // граница округляется и соседнее бронирование выглядит пересекающимся
+    public static LocalDateTime truncate(LocalDateTime time) {
+        return time == null ? null : time.truncatedTo(ChronoUnit.MICROS);
+    }
+
+    @PrePersist
+    void initPhase() {
+        start = truncate(start);
+        end = truncate(end);
+        if (phase == null) {
+            phase = BookingPhase.of(start, end, LocalDateTime.now());
+        }
+    }
 
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.booking.model;
+
+import java.time.LocalDateTime;
+
+public enum BookingPhase {
+    // Еще не началось
+    UPCOMING,
+    // Идет сейчас
+    ACTIVE,
+    // Завершилось
+    COMPLETED;
+
+    public static BookingPhase of(LocalDateTime start, LocalDateTime end, LocalDateTime time) {
+        if (end.isBefore(time)) {
+            return COMPLETED;
+        }
+        if (start.isBefore(time)) {
+            return ACTIVE;
+        }
+        return UPCOMING;
+    }
+}
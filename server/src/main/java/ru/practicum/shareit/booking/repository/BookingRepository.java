@@ -1,55 +1,161 @@
 package ru.practicum.shareit.booking.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingReturnDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.ItemCountDto;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
+    String RETURN_DTO_SELECT = "select new ru.practicum.shareit.booking.dto.BookingReturnDto(b.id, b.status, " +
+            "u.id, u.name, u.email, i.id, i.name, i.description, i.available, i.requestId, b.start, b.end) " +
+            "from Booking as b join b.booker as u join b.item as i ";
+    String UPCOMING = "ru.practicum.shareit.booking.model.BookingPhase.UPCOMING";
+    String ACTIVE = "ru.practicum.shareit.booking.model.BookingPhase.ACTIVE";
+    String COMPLETED = "ru.practicum.shareit.booking.model.BookingPhase.COMPLETED";
+    String NOT_COMPLETED = "b.phase in (" + UPCOMING + ", " + ACTIVE + ")";
+    // Списки CURRENT, PAST и FUTURE фильтруются только по фазе, чтобы запрос шел по индексу, начинающемуся с нее.
+    // Фазу двигает BookingPhaseScheduler, поэтому между его запусками бронирование может оставаться в прежнем списке
+    String IS_ACTIVE = "b.phase = " + ACTIVE;
+    String IS_COMPLETED = "b.phase = " + COMPLETED;
+    String IS_UPCOMING = "b.phase = " + UPCOMING;
 
     @Override
     <S extends Booking> S save(S booking);
 
-    @Query(value = "select b from Booking as b where b.booker.id = ?1 order by b.start desc")
-    Page<Booking> findBookingsByBooker(Long bookerId, Pageable pageable);
+    @Query(value = RETURN_DTO_SELECT + "where u.id = ?1 order by b.start desc, b.id desc")
+    List<BookingReturnDto> findBookingsByBooker(Long bookerId, Pageable pageable);
 
-    @Query(value = "select b from Booking as b where b.booker.id = ?1 and b.start > ?2 order by b.start desc")
-    Page<Booking> findFutureBookingsByBooker(Long bookerId, LocalDateTime dateTime, Pageable pageable);
+    @Query(value = RETURN_DTO_SELECT + "where u.id = ?1 and " + IS_UPCOMING + " order by b.start desc, b.id desc")
+    List<BookingReturnDto> findFutureBookingsByBooker(Long bookerId, Pageable pageable);
 
-    @Query(value = "select b from Booking as b where b.item.id = ?1 order by b.start desc")
-    Page<Booking> findBookingsByItem(Long itemId, Pageable pageable);
+    @Query(value = "select b from Booking as b join fetch b.item as i join fetch b.booker where i.id in ?1 and (" +
+            "b.start = (select max(l.start) from Booking as l where l.item.id = i.id and l.start <= ?2) or " +
+            "b.start = (select min(n.start) from Booking as n where n.item.id = i.id and n.start > ?2))")
+    List<Booking> findLastAndNextBookingsByItems(Collection<Long> itemIds, LocalDateTime time);
 
-    @Query(value = "select b from Booking as b where b.item.id = ?1 and b.start > ?2 order by b.start desc")
-    Page<Booking> findFutureBookingsByItem(Long bookerId, LocalDateTime dateTime, Pageable pageable);
+    @Query(value = RETURN_DTO_SELECT +
+            "where u.id = ?1 and b.status = ?2 order by b.start desc, b.id desc")
+    List<BookingReturnDto> findBookingsByBookerAndStatus(Long bookerId, BookingStatus status, Pageable pageable);
 
-    @Query(value = "select b from Booking as b where b.item.id = ?1 order by b.start asc")
-    List<Booking> findBookingsByItemAsc(Long itemId);
+    @Query(value = "select b from Booking as b " +
+            "where b.item.id = ?1 and b.status in ?2 and b.end > ?3 and b.start < ?4")
+    List<Booking> findOverlappingBookings(Long itemId, Collection<BookingStatus> statuses,
+                                          LocalDateTime start, LocalDateTime end);
 
-    @Query(value = "select b from Booking as b where b.item.id = ?1 and b.status = ?2 order by b.start desc")
-    Page<Booking> findBookingsByItemAndStatus(Long bookerId, BookingStatus status, Pageable pageable);
+    @Query(value = "select new ru.practicum.shareit.item.dto.TimeSlotDto(b.start, b.end) from Booking as b " +
+            "where b.item.id = ?1 and b.status in ?2 and b.end > ?3 and b.start < ?4 order by b.start")
+    List<TimeSlotDto> findBusySlotsByItem(Long itemId, Collection<BookingStatus> statuses,
+                                          LocalDateTime from, LocalDateTime to);
 
-    @Query(value = "select b from Booking as b where b.booker.id = ?1 and b.status = ?2 order by b.start desc")
-    Page<Booking> findBookingsByBookerAndStatus(Long bookerId, BookingStatus status, Pageable pageable);
+    @Query(value = "select new ru.practicum.shareit.item.dto.ItemCountDto(b.item.id, count(b)) from Booking as b " +
+            "where b.status in ?1 group by b.item.id")
+    List<ItemCountDto> countBookingsByItem(Collection<BookingStatus> statuses);
 
-    @Query(value = "select b from Booking as b " +
-            "where b.booker.id =?1 and b.item.id = ?2 and b.status <> ?3 order by b.start desc")
-    List<Booking> findBookingsByBookerAndItemAndStatusNot(Long userId, Long itemId, BookingStatus status);
+    @Query(value = "select b from Booking as b join fetch b.item join fetch b.booker where b.id in ?1")
+    List<Booking> findBookingsByIds(Collection<Long> ids);
+
+    @Query(value = "select b from Booking as b join fetch b.item as i join fetch b.booker " +
+            "where i.id in ?1 and b.status = ?2 and b.end > ?3 and b.start < ?4")
+    List<Booking> findBookingsByItemsAndStatusBetween(Collection<Long> itemIds, BookingStatus status,
+                                                      LocalDateTime from, LocalDateTime to);
 
-    @Query(value = "select b from Booking as b WHERE b.start < ?2 and b.end > ?2 and b.booker.id = ?1 ORDER BY b.start")
-    Page<Booking> findCurrentBookingForUser(Long userId, LocalDateTime time, Pageable pageable);
+    @Modifying(clearAutomatically = true)
+    @Query(value = "update Booking as b set b.status = ?1 where b.id in ?2")
+    int updateStatus(BookingStatus status, Collection<Long> ids);
 
-    @Query(value = "select b from Booking as b WHERE b.start < ?2 and b.end > ?2 and b.item.id = ?1 ORDER BY b.start")
-    Page<Booking> findCurrentBookingForOwner(Long itemId, LocalDateTime time, Pageable pageable);
+    @Modifying(clearAutomatically = true)
+    @Query(value = "update Booking as b set b.phase = " + COMPLETED + " " +
+            "where " + NOT_COMPLETED + " and b.end < ?1")
+    int completeBookings(LocalDateTime time);
 
-    @Query(value = "select b from Booking as b WHERE b.end < ?2 and b.booker.id = ?1 ORDER BY b.start")
-    Page<Booking> findPastBookingForUser(Long userId, LocalDateTime time, Pageable pageable);
+    @Modifying(clearAutomatically = true)
+    @Query(value = "update Booking as b set b.phase = " + ACTIVE + " " +
+            "where b.phase = " + UPCOMING + " and b.start < ?1")
+    int activateBookings(LocalDateTime time);
+
+    @Query(value = "select b from Booking as b " +
+            "where b.booker.id =?1 and b.item.id = ?2 and b.status <> ?3 order by b.start desc")
+    List<Booking> findBookingsByBookerAndItemAndStatusNot(Long userId, Long itemId, BookingStatus status);
 
-    @Query(value = "select b from Booking as b WHERE  b.end < ?2 and b.item.id = ?1 ORDER BY b.start")
-    Page<Booking> findPastBookingForOwner(Long itemId, LocalDateTime time, Pageable pageable);
+    @Query(value = RETURN_DTO_SELECT + "where u.id = ?1 and " + IS_ACTIVE + " order by b.start, b.id")
+    List<BookingReturnDto> findCurrentBookingForUser(Long userId, Pageable pageable);
+
+    @Query(value = RETURN_DTO_SELECT + "where u.id = ?1 and " + IS_COMPLETED + " order by b.start, b.id")
+    List<BookingReturnDto> findPastBookingForUser(Long userId, Pageable pageable);
+
+    @Query(value = RETURN_DTO_SELECT +
+            "where i.userId = ?1 order by b.start desc, b.id desc")
+    List<BookingReturnDto> findBookingsByOwner(Long ownerId, Pageable pageable);
+
+    @Query(value = RETURN_DTO_SELECT + "where i.userId = ?1 and " + IS_UPCOMING + " order by b.start desc, b.id desc")
+    List<BookingReturnDto> findFutureBookingsByOwner(Long ownerId, Pageable pageable);
+
+    @Query(value = RETURN_DTO_SELECT +
+            "where i.userId = ?1 and b.status = ?2 order by b.start desc, b.id desc")
+    List<BookingReturnDto> findBookingsByOwnerAndStatus(Long ownerId, BookingStatus status, Pageable pageable);
+
+    @Query(value = RETURN_DTO_SELECT + "where i.userId = ?1 and " + IS_ACTIVE + " order by b.start, b.id")
+    List<BookingReturnDto> findCurrentBookingsByOwner(Long ownerId, Pageable pageable);
+
+    @Query(value = RETURN_DTO_SELECT + "where i.userId = ?1 and " + IS_COMPLETED + " order by b.start, b.id")
+    List<BookingReturnDto> findPastBookingsByOwner(Long ownerId, Pageable pageable);
+
+    @Query(value = RETURN_DTO_SELECT + "where u.id = ?1 " +
+            "and b.start <= ?2 and (b.start < ?2 or b.id < ?3) order by b.start desc, b.id desc")
+    List<BookingReturnDto> findBookingsByBookerAfter(Long bookerId, LocalDateTime start, Long id, Pageable pageable);
+
+    @Query(value = RETURN_DTO_SELECT + "where u.id = ?1 and " + IS_UPCOMING + " " +
+            "and b.start <= ?2 and (b.start < ?2 or b.id < ?3) order by b.start desc, b.id desc")
+    List<BookingReturnDto> findFutureBookingsByBookerAfter(Long bookerId, LocalDateTime start, Long id,
+                                                        Pageable pageable);
+
+    @Query(value = RETURN_DTO_SELECT + "where u.id = ?1 and b.status = ?2 " +
+            "and b.start <= ?3 and (b.start < ?3 or b.id < ?4) order by b.start desc, b.id desc")
+    List<BookingReturnDto> findBookingsByBookerAndStatusAfter(Long bookerId, BookingStatus status,
+                                                           LocalDateTime start, Long id, Pageable pageable);
+
+    @Query(value = RETURN_DTO_SELECT + "where u.id = ?1 and " + IS_ACTIVE + " " +
+            "and b.start >= ?2 and (b.start > ?2 or b.id > ?3) order by b.start, b.id")
+    List<BookingReturnDto> findCurrentBookingForUserAfter(Long userId, LocalDateTime start, Long id,
+                                                       Pageable pageable);
+
+    @Query(value = RETURN_DTO_SELECT + "where u.id = ?1 and " + IS_COMPLETED + " " +
+            "and b.start >= ?2 and (b.start > ?2 or b.id > ?3) order by b.start, b.id")
+    List<BookingReturnDto> findPastBookingForUserAfter(Long userId, LocalDateTime start, Long id,
+                                                    Pageable pageable);
+
+    @Query(value = RETURN_DTO_SELECT + "where i.userId = ?1 " +
+            "and b.start <= ?2 and (b.start < ?2 or b.id < ?3) order by b.start desc, b.id desc")
+    List<BookingReturnDto> findBookingsByOwnerAfter(Long ownerId, LocalDateTime start, Long id, Pageable pageable);
+
+    @Query(value = RETURN_DTO_SELECT + "where i.userId = ?1 and " + IS_UPCOMING + " " +
+            "and b.start <= ?2 and (b.start < ?2 or b.id < ?3) order by b.start desc, b.id desc")
+    List<BookingReturnDto> findFutureBookingsByOwnerAfter(Long ownerId, LocalDateTime start, Long id,
+                                                       Pageable pageable);
+
+    @Query(value = RETURN_DTO_SELECT +
+            "where i.userId = ?1 and b.status = ?2 " +
+            "and b.start <= ?3 and (b.start < ?3 or b.id < ?4) order by b.start desc, b.id desc")
+    List<BookingReturnDto> findBookingsByOwnerAndStatusAfter(Long ownerId, BookingStatus status,
+                                                          LocalDateTime start, Long id, Pageable pageable);
+
+    @Query(value = RETURN_DTO_SELECT + "where i.userId = ?1 and " + IS_ACTIVE + " " +
+            "and b.start >= ?2 and (b.start > ?2 or b.id > ?3) order by b.start, b.id")
+    List<BookingReturnDto> findCurrentBookingsByOwnerAfter(Long ownerId, LocalDateTime start, Long id,
+                                                        Pageable pageable);
+
+    @Query(value = RETURN_DTO_SELECT + "where i.userId = ?1 and " + IS_COMPLETED + " " +
+            "and b.start >= ?2 and (b.start > ?2 or b.id > ?3) order by b.start, b.id")
+    List<BookingReturnDto> findPastBookingsByOwnerAfter(Long ownerId, LocalDateTime start, Long id,
+                                                     Pageable pageable);
 
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "shareit.booking.phase-sweep.enabled", havingValue = "true", matchIfMissing = true)
+public class BookingPhaseScheduler {
+    private final BookingService bookingService;
+
+    @Scheduled(fixedDelayString = "${shareit.booking.phase-sweep.delay:60000}")
+    public void updateBookingPhases() {
+        int updated = bookingService.updateBookingPhases(LocalDateTime.now());
+        if (updated > 0) {
+            log.info("Обновлена фаза {} бронирований", updated);
+        }
+    }
+}
@@ -1,20 +1,34 @@
 package ru.practicum.shareit.booking.service;
 
 
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingReturnDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingService {
     BookingReturnDto addBooking(BookingDto bookingDto, Long userId);
 
     BookingReturnDto patchBooking(Long bookingId, Long userId, boolean approved);
 
+    List<BookingDecisionResultDto> patchBookings(Long userId, List<BookingDecisionDto> decisions);
+
     BookingReturnDto getBooking(Long bookingId, Long userId);
 
     List<BookingReturnDto> getUserBookingList(Long userId, Integer from, Integer size, String state);
 
     List<BookingReturnDto> getOwnerBookingList(Long userId, Integer from, Integer size, String state);
 
+    List<BookingReturnDto> getUserBookingListAfter(Long userId, String cursor, Integer size, String state);
+
+    List<BookingReturnDto> getOwnerBookingListAfter(Long userId, String cursor, Integer size, String state);
+
+    void exportOwnerBookings(Long userId, Consumer<BookingReturnDto> action);
+
+    int updateBookingPhases(LocalDateTime time);
+
 }
\ No newline at end of file
@@ -5,31 +5,45 @@ import org.springframework.stereotype.Service;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.dto.BookingReturnDto;
 import ru.practicum.shareit.exception.EntityNotAvailableException;
 import ru.practicum.shareit.exception.EntityNotFoundException;
-import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.request.FromSizeRequest;
 import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    private static final PageRequest EXPORT_PAGE = PageRequest.of(0, 500);
+    private static final List<BookingStatus> ACTIVE_STATUSES = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
     private final BookingRepository bookingRepository;
     private final ItemService itemService;
     private final UserService userService;
@@ -38,7 +52,7 @@ public class BookingServiceImpl implements BookingService {
     @Transactional
     public BookingReturnDto addBooking(BookingDto bookingDto, Long userId) {
         validateBookingTime(bookingDto);
-        Item item = itemService.getItemById(bookingDto.getItemId());
+        Item item = itemService.getItemByIdForUpdate(bookingDto.getItemId());
         if (!item.getAvailable()) {
             throw new EntityNotAvailableException("Предмет недоступен");
         }
@@ -47,9 +61,12 @@ public class BookingServiceImpl implements BookingService {
         }
         User booker = UserMapper.toUser(userService.getUserById(userId));
         Booking booking = BookingMapper.toBooking(bookingDto, item, booker);
+        validateNoOverlap(booking, ACTIVE_STATUSES);
         userService.getUserById(userId);
         booking.setStatus(BookingStatus.WAITING);
-        return BookingMapper.toBookingReturnDto(bookingRepository.save(booking));
+        Booking savedBooking = bookingRepository.save(booking);
+        itemService.countBooking(item.getId());
+        return BookingMapper.toBookingReturnDto(savedBooking);
     }
 
     @Override
@@ -68,14 +85,59 @@ public class BookingServiceImpl implements BookingService {
             if (booking.getStatus().equals(BookingStatus.APPROVED)) {
                 throw new IllegalStateException("Бронирование уже подтверждено");
             }
-            booking.setStatus(BookingStatus.APPROVED);
+            itemService.getItemByIdForUpdate(item.getId());
+            validateNoOverlap(booking, List.of(BookingStatus.APPROVED));
+            setStatus(booking, BookingStatus.APPROVED);
         }
         if (booking.getItem().getUserId().equals(userId) && !approved) {
-            booking.setStatus(BookingStatus.REJECTED);
+            setStatus(booking, BookingStatus.REJECTED);
         }
         return BookingMapper.toBookingReturnDto(bookingRepository.save(booking));
     }
 
+    @Override
+    @Transactional
+    public List<BookingDecisionResultDto> patchBookings(Long userId, List<BookingDecisionDto> decisions) {
+        Map<Long, Booking> bookings = bookingRepository.findBookingsByIds(uniqueBookingIds(decisions))
+                .stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        Map<Long, List<Booking>> approvedByItem = getApprovedBookingsForUpdate(userId, decisions, bookings);
+        Map<Long, BookingStatus> statuses = new HashMap<>();
+
+        List<BookingDecisionResultDto> results = new ArrayList<>();
+        for (BookingDecisionDto decision : decisions) {
+            Booking booking = bookings.get(decision.getBookingId());
+            if (booking == null) {
+                results.add(BookingDecisionResultDto.failure(decision.getBookingId(), "Бронирование не найдено"));
+            } else if (decision.getApproved() == null) {
+                results.add(BookingDecisionResultDto.failure(booking.getId(), "Не указано решение по бронированию"));
+            } else if (!booking.getItem().getUserId().equals(userId)) {
+                results.add(BookingDecisionResultDto.failure(booking.getId(),
+                        "статус бронирования может менять только владелец вещи"));
+            } else if (!decision.getApproved()) {
+                statuses.put(booking.getId(), BookingStatus.REJECTED);
+                results.add(BookingDecisionResultDto.success(booking.getId(), BookingStatus.REJECTED));
+            } else if (statuses.getOrDefault(booking.getId(), booking.getStatus()) == BookingStatus.APPROVED) {
+                results.add(BookingDecisionResultDto.failure(booking.getId(), "Бронирование уже подтверждено"));
+            } else if (overlapsApproved(booking, approvedByItem.get(booking.getItem().getId()), statuses)) {
+                results.add(BookingDecisionResultDto.failure(booking.getId(), "Предмет уже забронирован на это время"));
+            } else {
+                statuses.put(booking.getId(), BookingStatus.APPROVED);
+                approvedByItem.get(booking.getItem().getId()).add(booking);
+                results.add(BookingDecisionResultDto.success(booking.getId(), BookingStatus.APPROVED));
+            }
+        }
+
+        statuses.forEach((id, status) -> itemService.countBookingStatusChange(bookings.get(id).getItem().getId(),
+                bookings.get(id).getStatus(), status));
+        statuses.entrySet().stream()
+                .filter(entry -> entry.getValue() != bookings.get(entry.getKey()).getStatus())
+                .collect(Collectors.groupingBy(Map.Entry::getValue,
+                        Collectors.mapping(Map.Entry::getKey, Collectors.toList())))
+                .forEach(bookingRepository::updateStatus);
+        return results;
+    }
+
     @Override
     public BookingReturnDto getBooking(Long bookingId, Long userId) {
         Booking booking = bookingRepository.findById(bookingId).orElseThrow(() -> {
@@ -97,32 +159,19 @@ public class BookingServiceImpl implements BookingService {
         Pageable pageable = FromSizeRequest.of(from, size);
         switch (state) {
             case "FUTURE":
-                return bookingRepository.findFutureBookingsByBooker(userId, LocalDateTime.now(), pageable)
-                        .stream()
-                        .map(BookingMapper::toBookingReturnDto)
-                        .collect(Collectors.toList());
+                return bookingRepository.findFutureBookingsByBooker(userId, pageable);
             case "ALL":
-                return bookingRepository.findBookingsByBooker(userId, pageable).stream()
-                        .map(BookingMapper::toBookingReturnDto)
-                        .collect(Collectors.toList());
+                return bookingRepository.findBookingsByBooker(userId, pageable);
             case "WAITING":
                 return bookingRepository
-                        .findBookingsByBookerAndStatus(userId, BookingStatus.WAITING, pageable).stream()
-                        .map(BookingMapper::toBookingReturnDto)
-                        .collect(Collectors.toList());
+                        .findBookingsByBookerAndStatus(userId, BookingStatus.WAITING, pageable);
             case "REJECTED":
                 return bookingRepository
-                        .findBookingsByBookerAndStatus(userId, BookingStatus.REJECTED, pageable).stream()
-                        .map(BookingMapper::toBookingReturnDto)
-                        .collect(Collectors.toList());
+                        .findBookingsByBookerAndStatus(userId, BookingStatus.REJECTED, pageable);
             case "CURRENT":
-                return bookingRepository.findCurrentBookingForUser(userId, LocalDateTime.now(), pageable).stream()
-                        .map(BookingMapper::toBookingReturnDto)
-                        .collect(Collectors.toList());
+                return bookingRepository.findCurrentBookingForUser(userId, pageable);
             case "PAST":
-                return bookingRepository.findPastBookingForUser(userId, LocalDateTime.now(), pageable).stream()
-                        .map(BookingMapper::toBookingReturnDto)
-                        .collect(Collectors.toList());
+                return bookingRepository.findPastBookingForUser(userId, pageable);
             default:
                 throw new EntityNotAvailableException("Unknown state: UNSUPPORTED_STATUS");
         }
@@ -131,44 +180,192 @@ public class BookingServiceImpl implements BookingService {
     @Override
     public List<BookingReturnDto> getOwnerBookingList(Long userId, Integer from, Integer size, String state) {
         userService.getUserById(userId);
-        Stream<Long> itemsId = itemService.getItems(userId).stream().map(ItemDto::getId);
         Pageable pageable = FromSizeRequest.of(from, size);
+        List<BookingReturnDto> bookings;
         switch (state) {
             case "FUTURE":
-                return itemsId.flatMap((id) ->
-                                bookingRepository.findFutureBookingsByItem(
-                                        id, LocalDateTime.now(), pageable).stream())
-                        .map(BookingMapper::toBookingReturnDto)
-                        .sorted((t1, t2) -> -t1.getStart().compareTo(t2.getStart()))
-                        .collect(Collectors.toList());
+                bookings = bookingRepository.findFutureBookingsByOwner(userId, pageable);
+                break;
+            case "ALL":
+                bookings = bookingRepository.findBookingsByOwner(userId, pageable);
+                break;
+            case "WAITING":
+                bookings = bookingRepository.findBookingsByOwnerAndStatus(userId, BookingStatus.WAITING, pageable);
+                break;
+            case "REJECTED":
+                bookings = bookingRepository.findBookingsByOwnerAndStatus(userId, BookingStatus.REJECTED, pageable);
+                break;
+            case "CURRENT":
+                bookings = bookingRepository.findCurrentBookingsByOwner(userId, pageable);
+                break;
+            case "PAST":
+                bookings = bookingRepository.findPastBookingsByOwner(userId, pageable);
+                break;
+            default:
+                throw new EntityNotAvailableException("Unknown state: UNSUPPORTED_STATUS");
+        }
+        return bookings;
+    }
 
+    @Override
+    public List<BookingReturnDto> getUserBookingListAfter(Long userId, String cursor, Integer size, String state) {
+        if (cursor.isEmpty()) {
+            return getUserBookingList(userId, 0, size, state);
+        }
+        userService.getUserById(userId);
+        BookingCursor after = BookingCursor.decode(cursor);
+        Pageable pageable = PageRequest.of(0, size);
+        List<BookingReturnDto> bookings;
+        switch (state) {
+            case "FUTURE":
+                bookings = bookingRepository.findFutureBookingsByBookerAfter(userId,
+                        after.getStart(), after.getId(), pageable);
+                break;
             case "ALL":
-                return itemsId.flatMap((id) -> bookingRepository.findBookingsByItem(id, pageable).stream())
-                        .map(BookingMapper::toBookingReturnDto)
-                        .collect(Collectors.toList());
+                bookings = bookingRepository.findBookingsByBookerAfter(userId,
+                        after.getStart(), after.getId(), pageable);
+                break;
             case "WAITING":
-                return itemsId.flatMap((id) -> bookingRepository
-                                .findBookingsByItemAndStatus(id, BookingStatus.WAITING, pageable).stream())
-                        .map(BookingMapper::toBookingReturnDto)
-                        .collect(Collectors.toList());
+                bookings = bookingRepository.findBookingsByBookerAndStatusAfter(userId, BookingStatus.WAITING,
+                        after.getStart(), after.getId(), pageable);
+                break;
             case "REJECTED":
-                return itemsId.flatMap((id) -> bookingRepository
-                                .findBookingsByItemAndStatus(id, BookingStatus.REJECTED, pageable).stream())
-                        .map(BookingMapper::toBookingReturnDto)
-                        .collect(Collectors.toList());
+                bookings = bookingRepository.findBookingsByBookerAndStatusAfter(userId, BookingStatus.REJECTED,
+                        after.getStart(), after.getId(), pageable);
+                break;
             case "CURRENT":
-                return itemsId.flatMap((id) -> bookingRepository
-                                .findCurrentBookingForOwner(id, LocalDateTime.now(), pageable).stream())
-                        .map(BookingMapper::toBookingReturnDto)
-                        .collect(Collectors.toList());
+                bookings = bookingRepository.findCurrentBookingForUserAfter(userId,
+                        after.getStart(), after.getId(), pageable);
+                break;
             case "PAST":
-                return itemsId.flatMap((id) -> bookingRepository
-                                .findPastBookingForOwner(id, LocalDateTime.now(), pageable).stream())
-                        .map(BookingMapper::toBookingReturnDto)
-                        .collect(Collectors.toList());
+                bookings = bookingRepository.findPastBookingForUserAfter(userId,
+                        after.getStart(), after.getId(), pageable);
+                break;
             default:
                 throw new EntityNotAvailableException("Unknown state: UNSUPPORTED_STATUS");
         }
+        return bookings;
+    }
+
+    @Override
+    public List<BookingReturnDto> getOwnerBookingListAfter(Long userId, String cursor, Integer size, String state) {
+        if (cursor.isEmpty()) {
+            return getOwnerBookingList(userId, 0, size, state);
+        }
+        userService.getUserById(userId);
+        BookingCursor after = BookingCursor.decode(cursor);
+        Pageable pageable = PageRequest.of(0, size);
+        List<BookingReturnDto> bookings;
+        switch (state) {
+            case "FUTURE":
+                bookings = bookingRepository.findFutureBookingsByOwnerAfter(userId,
+                        after.getStart(), after.getId(), pageable);
+                break;
+            case "ALL":
+                bookings = bookingRepository.findBookingsByOwnerAfter(userId,
+                        after.getStart(), after.getId(), pageable);
+                break;
+            case "WAITING":
+                bookings = bookingRepository.findBookingsByOwnerAndStatusAfter(userId, BookingStatus.WAITING,
+                        after.getStart(), after.getId(), pageable);
+                break;
+            case "REJECTED":
+                bookings = bookingRepository.findBookingsByOwnerAndStatusAfter(userId, BookingStatus.REJECTED,
+                        after.getStart(), after.getId(), pageable);
+                break;
+            case "CURRENT":
+                bookings = bookingRepository.findCurrentBookingsByOwnerAfter(userId,
+                        after.getStart(), after.getId(), pageable);
+                break;
+            case "PAST":
+                bookings = bookingRepository.findPastBookingsByOwnerAfter(userId,
+                        after.getStart(), after.getId(), pageable);
+                break;
+            default:
+                throw new EntityNotAvailableException("Unknown state: UNSUPPORTED_STATUS");
+        }
+        return bookings;
+    }
+
+    // Выгрузка не открывает общую транзакцию: каждая страница читается отдельной короткой транзакцией репозитория,
+    // поэтому пока ответ пишется клиенту, соединение с базой и снимок данных не удерживаются
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void exportOwnerBookings(Long userId, Consumer<BookingReturnDto> action) {
+        userService.getUserById(userId);
+        List<BookingReturnDto> page = bookingRepository.findBookingsByOwner(userId, EXPORT_PAGE);
+        while (!page.isEmpty()) {
+            page.forEach(action);
+            if (page.size() < EXPORT_PAGE.getPageSize()) {
+                return;
+            }
+            BookingCursor last = BookingCursor.of(page.get(page.size() - 1));
+            page = bookingRepository.findBookingsByOwnerAfter(userId, last.getStart(), last.getId(), EXPORT_PAGE);
+        }
+    }
+
+    @Override
+    @Transactional
+    public int updateBookingPhases(LocalDateTime time) {
+        return bookingRepository.completeBookings(time) + bookingRepository.activateBookings(time);
+    }
+
+    // Повторный id сделал бы итог зависимым от порядка решений, поэтому такой пакет отклоняется до блокировок
+    private static Set<Long> uniqueBookingIds(List<BookingDecisionDto> decisions) {
+        Set<Long> ids = new HashSet<>();
+        for (BookingDecisionDto decision : decisions) {
+            if (decision.getBookingId() != null && !ids.add(decision.getBookingId())) {
+                throw new IllegalStateException("Бронирование с id " + decision.getBookingId()
+                        + " указано в пакете несколько раз");
+            }
+        }
+        return ids;
+    }
+
+    private void setStatus(Booking booking, BookingStatus status) {
+        itemService.countBookingStatusChange(booking.getItem().getId(), booking.getStatus(), status);
+        booking.setStatus(status);
+    }
+
+    private Map<Long, List<Booking>> getApprovedBookingsForUpdate(Long userId, List<BookingDecisionDto> decisions,
+                                                                  Map<Long, Booking> bookings) {
+        List<Booking> toApprove = decisions.stream()
+                .filter(decision -> Boolean.TRUE.equals(decision.getApproved()))
+                .map(decision -> bookings.get(decision.getBookingId()))
+                .filter(booking -> booking != null && booking.getItem().getUserId().equals(userId))
+                .collect(Collectors.toList());
+        Map<Long, List<Booking>> approvedByItem = new HashMap<>();
+        if (toApprove.isEmpty()) {
+            return approvedByItem;
+        }
+        Set<Long> itemIds = toApprove.stream()
+                .map(booking -> booking.getItem().getId())
+                .collect(Collectors.toSet());
+        itemService.getItemsByIdForUpdate(itemIds);
+        itemIds.forEach(itemId -> approvedByItem.put(itemId, new ArrayList<>()));
+        LocalDateTime from = toApprove.stream().map(Booking::getStart).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDateTime to = toApprove.stream().map(Booking::getEnd).max(Comparator.naturalOrder()).orElseThrow();
+        bookingRepository.findBookingsByItemsAndStatusBetween(itemIds, BookingStatus.APPROVED, from, to)
+                .forEach(booking -> approvedByItem.get(booking.getItem().getId()).add(booking));
+        return approvedByItem;
+    }
+
+    private boolean overlapsApproved(Booking booking, List<Booking> approved, Map<Long, BookingStatus> statuses) {
+        return approved.stream()
+                .filter(other -> !other.getId().equals(booking.getId()))
+                .filter(other -> statuses.getOrDefault(other.getId(), other.getStatus()) == BookingStatus.APPROVED)
+                .anyMatch(other -> other.getEnd().isAfter(booking.getStart())
+                        && other.getStart().isBefore(booking.getEnd()));
+    }
+
+    private void validateNoOverlap(Booking booking, List<BookingStatus> statuses) {
+        boolean overlaps = bookingRepository.findOverlappingBookings(booking.getItem().getId(), statuses,
+                        booking.getStart(), booking.getEnd())
+                .stream()
+                .anyMatch(other -> !other.getId().equals(booking.getId()));
+        if (overlaps) {
+            throw new EntityNotAvailableException("Предмет уже забронирован на это время");
+        }
     }
 
     private void validateBookingTime(BookingDto bookingDto) {
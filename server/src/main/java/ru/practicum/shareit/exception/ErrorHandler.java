@@ -2,6 +2,7 @@ package ru.practicum.shareit.exception;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -23,6 +24,14 @@ public class ErrorHandler {
         return Map.of("error", e.getMessage());
     }
 
+    @ExceptionHandler(UserNotFoundException.class)
+    public ResponseEntity<Map<String, String>> userNotFoundExceptionHandler(final UserNotFoundException e) {
+        log.info("Error {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .header(UserNotFoundException.HEADER, UserNotFoundException.ENTITY)
+                .body(Map.of("Error", e.getMessage()));
+    }
+
     @ExceptionHandler(EntityNotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public Map<String, String> notFoundExceptionHandler(final EntityNotFoundException e) {
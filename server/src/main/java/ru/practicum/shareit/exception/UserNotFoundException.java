@@ -0,0 +1,12 @@
+package ru.practicum.shareit.exception;
+
+public class UserNotFoundException extends EntityNotFoundException {
+    // Заголовок ответа, по которому gateway отличает отсутствующего пользователя от других ненайденных сущностей
+    // (MissingUserCache.HEADER и ENTITY в gateway)
+    public static final String HEADER = "X-Missing-Entity";
+    public static final String ENTITY = "user";
+
+    public UserNotFoundException() {
+        super("Пользователь не найден");
+    }
+}
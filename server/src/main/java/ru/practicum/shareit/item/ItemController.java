@@ -2,11 +2,17 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSearchResultDto;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.item.dto.CommentDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 
@@ -16,6 +22,8 @@ import java.util.List;
 @Slf4j
 public class ItemController {
 
+    private static final long DEFAULT_AVAILABILITY_DAYS = 90;
+
     private final ItemService itemService;
 
     @PostMapping
@@ -50,10 +58,45 @@ public class ItemController {
         return itemService.searchItem(text, from, size);
     }
 
+    @GetMapping("/search/ranked")
+    public ItemSearchResultDto searchRanked(@RequestParam String text,
+                                            @RequestParam(required = false) Boolean available,
+                                            @RequestParam(required = false) Boolean withRequest,
+                                            @RequestParam(value = "from", defaultValue = "0") Integer from,
+                                            @RequestParam(value = "size", defaultValue = "10") Integer size) {
+        log.info("Получен запрос на ранжированный поиск предмета по тексту - {}", text);
+        return itemService.searchRanked(text, available, withRequest, from, size);
+    }
+
+    @GetMapping("/suggest")
+    public List<String> suggest(@RequestParam String prefix,
+                                @RequestParam(value = "size", defaultValue = "10") Integer size) {
+        log.info("Получен запрос подсказок по префиксу - {}", prefix);
+        return itemService.suggest(prefix, size);
+    }
+
     @GetMapping("/{itemId}")
-    public ItemDto getItemById(@RequestHeader("X-Sharer-User-Id") Long userId, @PathVariable Long itemId) {
+    public ResponseEntity<ItemDto> getItemById(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                               @PathVariable Long itemId) {
         log.info("Получен запрос на получение предмета с id = {}", itemId);
-        return itemService.getById(itemId, userId);
+        ItemDto item = itemService.getById(itemId, userId);
+        // Последнее и следующее бронирования меняются со временем, такой ответ кэшировать нельзя
+        if (item.getLastBooking() != null || item.getNextBooking() != null) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(item);
+        }
+        return ResponseEntity.ok(item);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public List<TimeSlotDto> getAvailability(@PathVariable Long itemId,
+                                             @RequestParam(required = false)
+                                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                             @RequestParam(required = false)
+                                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("Получен запрос на получение свободных периодов предмета с id = {} с {} по {}", itemId, from, to);
+        LocalDateTime start = from == null ? LocalDateTime.now() : from;
+        LocalDateTime end = to == null ? start.plusDays(DEFAULT_AVAILABILITY_DAYS) : to;
+        return itemService.getAvailability(itemId, start, end);
     }
 
     @GetMapping
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ItemSearchResultDto {
+    private List<ItemDto> items;
+    private long total;
+    // Без поискового индекса total и фасеты считаются только по первым найденным вещам из ограниченной выборки
+    private boolean truncated;
+    private Facets facets;
+
+    // Число найденных по тексту вещей с каждым признаком, без учета фильтров запроса
+    @Data
+    @AllArgsConstructor
+    public static class Facets {
+        private long available;
+        private long withRequest;
+    }
+}
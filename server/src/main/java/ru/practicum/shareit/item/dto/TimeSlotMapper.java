@@ -0,0 +1,32 @@
+package ru.practicum.shareit.item.dto;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class TimeSlotMapper {
+
+    // Занятые интервалы должны быть отсортированы по началу, пересечения между ними допускаются
+    public static List<TimeSlotDto> toFreeSlots(List<TimeSlotDto> busySlots, LocalDateTime from, LocalDateTime to) {
+        List<TimeSlotDto> freeSlots = new ArrayList<>();
+        LocalDateTime cursor = from;
+        for (TimeSlotDto busy : busySlots) {
+            if (!cursor.isBefore(to)) {
+                break;
+            }
+            if (busy.getStart().isAfter(cursor)) {
+                freeSlots.add(new TimeSlotDto(cursor, busy.getStart().isBefore(to) ? busy.getStart() : to));
+            }
+            if (busy.getEnd().isAfter(cursor)) {
+                cursor = busy.getEnd();
+            }
+        }
+        if (cursor.isBefore(to)) {
+            freeSlots.add(new TimeSlotDto(cursor, to));
+        }
+        return freeSlots;
+    }
+}
@@ -1,6 +1,8 @@
 package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.item.dto.ItemCountDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 
@@ -8,4 +10,8 @@ import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findCommentsByItemOrderByCreatedDesc(Item item);
+
+    @Query("select new ru.practicum.shareit.item.dto.ItemCountDto(c.item.id, count(c)) from Comment c " +
+            "group by c.item.id")
+    List<ItemCountDto> countCommentsByItem();
 }
\ No newline at end of file
@@ -3,24 +3,63 @@ package ru.practicum.shareit.item.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.model.Item;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
+    // Текст поиска передается в like после escapeLike, чтобы % и _ из запроса совпадали только сами с собой
+    String LIKE_ESCAPE = " escape '\\'";
 
     Page<Item> findAllByUserIdOrderByIdAsc(Long id, Pageable pageable);
 
     @Query("select i from Item i " +
-            "where upper(i.name) like upper(concat('%', ?1, '%')) " +
-            " or upper(i.description) like upper(concat('%', ?1, '%')) " +
+            "where (upper(i.name) like upper(concat('%', ?1, '%'))" + LIKE_ESCAPE +
+            " or upper(i.description) like upper(concat('%', ?1, '%'))" + LIKE_ESCAPE + ") " +
             "and i.available is true")
     Page<Item> searchItem(String text, Pageable pageable);
 
+    // Только для PostgreSQL: like по lower(...) обслуживают GIN-индексы pg_trgm,
+    // а порядок задает ранг совпадения по словам из сгенерированного столбца search_vector.
+    // В like идет экранированный текст, в plainto_tsquery - исходный
+    @Query(value = "select i.* from items i " +
+            "where i.available is true " +
+            "and (lower(i.name) like concat('%', lower(?2), '%')" + LIKE_ESCAPE +
+            " or lower(i.description) like concat('%', lower(?2), '%')" + LIKE_ESCAPE + ") " +
+            "order by ts_rank(i.search_vector, plainto_tsquery('simple', ?1)) desc, i.id",
+            nativeQuery = true)
+    List<Item> searchItemFullText(String text, String escapedText, Pageable pageable);
+
+    @Query("select i from Item i " +
+            "where upper(i.name) like upper(concat('%', ?1, '%'))" + LIKE_ESCAPE +
+            " or upper(i.description) like upper(concat('%', ?1, '%'))" + LIKE_ESCAPE + " order by i.id")
+    List<Item> findAllContaining(String text, Pageable pageable);
+
+    @Query("select i.name from Item i " +
+            "where upper(i.name) like upper(concat('%', ?1, '%'))" + LIKE_ESCAPE + " and i.available is true")
+    List<String> findAvailableNamesContaining(String text, Pageable pageable);
+
+    static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
     List<Item> findAllByRequestId(Long id);
 
+    List<Item> findAllByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
     @Override
     Optional<Item> findById(Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item i where i.id = ?1")
+    Optional<Item> findByIdForUpdate(Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item i where i.id in ?1 order by i.id")
+    List<Item> findAllByIdForUpdate(Collection<Long> ids);
 }
@@ -0,0 +1,187 @@
+package ru.practicum.shareit.item.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Префиксное дерево слов из названий доступных вещей. В каждом узле хранится число вещей, в названии которых
+// есть слово, и лениво вычисляемый список самых частых слов поддерева, сбрасываемый по пути при изменении
+final class ItemNameTrie {
+    static final int MAX_SUGGESTIONS = 20;
+
+    private static final Comparator<Suggestion> BY_COUNT = Comparator.comparingInt((Suggestion s) -> -s.count)
+            .thenComparing(s -> s.term);
+
+    private Node root = new Node();
+
+    void add(String term) {
+        change(term, 1);
+    }
+
+    void remove(String term) {
+        change(term, -1);
+    }
+
+    void clear() {
+        root = new Node();
+    }
+
+    // Слова, начинающиеся с префикса, записанного с точностью до maxEdits правок,
+    // по возрастанию числа правок и убыванию популярности
+    List<String> suggest(String prefix, int maxEdits, int limit) {
+        Map<String, Suggestion> found = new HashMap<>();
+        if (maxEdits == 0) {
+            Node node = find(prefix);
+            if (node != null) {
+                collect(node, 0, found);
+            }
+        } else {
+            int[] row = new int[prefix.length() + 1];
+            Arrays.setAll(row, i -> i);
+            for (int i = 0; i < root.size; i++) {
+                walk(root.nodes[i], root.keys[i], prefix, row, maxEdits, found);
+            }
+        }
+        return found.values().stream()
+                .sorted(Comparator.comparingInt((Suggestion s) -> s.edits).thenComparing(BY_COUNT))
+                .limit(limit)
+                .map(s -> s.term)
+                .collect(Collectors.toList());
+    }
+
+    // Ветки, в которых после удаления не осталось ни слов, ни потомков, отрезаются,
+    // чтобы переименования и снятия с аренды не копили пустые узлы
+    private void change(String term, int delta) {
+        Node[] path = new Node[term.length() + 1];
+        Node node = root;
+        node.top = null;
+        path[0] = node;
+        for (int i = 0; i < term.length(); i++) {
+            node = node.child(term.charAt(i), delta > 0);
+            if (node == null) {
+                return;
+            }
+            node.top = null;
+            path[i + 1] = node;
+        }
+        node.term = term;
+        node.count += delta;
+        for (int i = term.length(); i > 0 && path[i].count == 0 && path[i].size == 0; i--) {
+            path[i - 1].removeChild(term.charAt(i - 1));
+        }
+    }
+
+    private Node find(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i), false);
+        }
+        return node;
+    }
+
+    // Строка расстояния Левенштейна между префиксом и путем до узла. Узел, путь до которого
+    // отличается от префикса не более чем на maxEdits правок, отдает свои слова; спуск продолжается,
+    // пока хотя бы один префикс запроса еще укладывается в допустимое число правок
+    private void walk(Node node, char key, String prefix, int[] previous, int maxEdits,
+                      Map<String, Suggestion> found) {
+        int[] row = new int[previous.length];
+        row[0] = previous[0] + 1;
+        int best = row[0];
+        for (int i = 1; i < row.length; i++) {
+            int replace = previous[i - 1] + (prefix.charAt(i - 1) == key ? 0 : 1);
+            row[i] = Math.min(Math.min(row[i - 1] + 1, previous[i] + 1), replace);
+            best = Math.min(best, row[i]);
+        }
+        if (row[row.length - 1] <= maxEdits) {
+            collect(node, row[row.length - 1], found);
+        }
+        if (best <= maxEdits) {
+            for (int i = 0; i < node.size; i++) {
+                walk(node.nodes[i], node.keys[i], prefix, row, maxEdits, found);
+            }
+        }
+    }
+
+    private static void collect(Node node, int edits, Map<String, Suggestion> found) {
+        for (Suggestion suggestion : top(node)) {
+            found.merge(suggestion.term, new Suggestion(suggestion.term, suggestion.count, edits),
+                    (current, candidate) -> current.edits <= candidate.edits ? current : candidate);
+        }
+    }
+
+    private static List<Suggestion> top(Node node) {
+        List<Suggestion> top = node.top;
+        if (top != null) {
+            return top;
+        }
+        List<Suggestion> candidates = new ArrayList<>();
+        if (node.count > 0) {
+            candidates.add(new Suggestion(node.term, node.count, 0));
+        }
+        for (int i = 0; i < node.size; i++) {
+            candidates.addAll(top(node.nodes[i]));
+        }
+        candidates.sort(BY_COUNT);
+        top = List.copyOf(candidates.subList(0, Math.min(MAX_SUGGESTIONS, candidates.size())));
+        node.top = top;
+        return top;
+    }
+
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] nodes = new Node[0];
+        private int size;
+        private String term;
+        private int count;
+        // Читатели под общей блокировкой могут вычислить список одновременно, результат у всех одинаковый
+        private volatile List<Suggestion> top;
+
+        Node child(char key, boolean create) {
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            if (index >= 0) {
+                return nodes[index];
+            }
+            if (!create) {
+                return null;
+            }
+            int position = -index - 1;
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, Math.max(2, size * 2));
+                nodes = Arrays.copyOf(nodes, Math.max(2, size * 2));
+            }
+            System.arraycopy(keys, position, keys, position + 1, size - position);
+            System.arraycopy(nodes, position, nodes, position + 1, size - position);
+            keys[position] = key;
+            nodes[position] = new Node();
+            size++;
+            return nodes[position];
+        }
+
+        void removeChild(char key) {
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(nodes, index + 1, nodes, index, size - index - 1);
+            size--;
+            nodes[size] = null;
+        }
+    }
+
+    private static final class Suggestion {
+        private final String term;
+        private final int count;
+        private final int edits;
+
+        private Suggestion(String term, int count, int edits) {
+            this.term = term;
+            this.count = count;
+            this.edits = edits;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package ru.practicum.shareit.item.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Кэш страниц результатов поиска по нормализованному тексту запроса.
+// При записи вещи сбрасываются только запросы, текст которых входит в ее название или описание
+// до или после изменения: результаты остальных запросов от этой вещи не зависят.
+// Тексты закэшированных запросов разложены по первой триграмме, как кандидаты в ItemSearchIndex, поэтому
+// запись проверяет только запросы, триграмма которых встречается в тексте вещи, а не весь кэш
+@Component
+public class ItemSearchCache {
+    private static final int VERSION_STRIPES = 1024;
+
+    private final boolean enabled;
+    private final Cache<Key, List<ItemDto>> cache;
+    private final Map<Long, Set<String>> textsByGram = new ConcurrentHashMap<>();
+    private final Map<String, Set<Key>> keysByText = new ConcurrentHashMap<>();
+    // Версия растет при сбросе для каждой граммы записанного текста, чтобы не сохранять результат поиска,
+    // начатого до коммита записи. Поиск с другой граммой продолжает кэшироваться
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    private final Counter invalidations;
+
+    public ItemSearchCache(@Value("${shareit.search.cache.enabled:true}") boolean enabled,
+                           @Value("${shareit.search.cache.max-size:10000}") long maxSize,
+                           @Value("${shareit.search.cache.ttl:10m}") Duration ttl,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .removalListener((Key key, List<ItemDto> value, RemovalCause cause) -> unindex(key))
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "item-search");
+        Gauge.builder("shareit.search.cache.hit-ratio", cache, value -> value.stats().hitRate())
+                .register(meterRegistry);
+        this.invalidations = meterRegistry.counter("shareit.search.cache.invalidations");
+    }
+
+    public List<ItemDto> get(String text, int from, int size, Supplier<List<ItemDto>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        String normalized = ItemSearchIndex.normalize(text);
+        Key key = new Key(normalized, from, size);
+        List<ItemDto> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        int stripe = stripe(key.getGram());
+        long observed = versions.get(stripe);
+        List<ItemDto> result = List.copyOf(loader.get());
+        // Ключ попадает в индекс вместе с записью в кэш, чтобы удаление из индекса не обогнало вставку
+        keysByText.compute(normalized, (ignored, keys) -> {
+            Set<Key> indexed = keys != null ? keys : ConcurrentHashMap.newKeySet();
+            indexed.add(key);
+            textsByGram.computeIfAbsent(key.getGram(), gram -> ConcurrentHashMap.newKeySet()).add(normalized);
+            cache.put(key, result);
+            return indexed;
+        });
+        if (versions.get(stripe) != observed) {
+            cache.invalidate(key);
+        }
+        return result;
+    }
+
+    // Принимает название и описание вещи до и после изменения
+    public void invalidateAfterCommit(String... texts) {
+        if (!enabled) {
+            return;
+        }
+        List<String> normalized = Arrays.stream(texts)
+                .filter(Objects::nonNull)
+                .map(ItemSearchIndex::normalize)
+                .collect(Collectors.toList());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(normalized);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(normalized);
+            }
+        });
+    }
+
+    private void invalidate(List<String> texts) {
+        long[] grams = ItemSearchIndex.documentGrams(texts.toArray(String[]::new));
+        for (long gram : grams) {
+            versions.incrementAndGet(stripe(gram));
+        }
+        for (long gram : grams) {
+            Set<String> candidates = textsByGram.get(gram);
+            if (candidates == null) {
+                continue;
+            }
+            for (String candidate : candidates) {
+                Set<Key> keys = keysByText.get(candidate);
+                if (keys != null && texts.stream().anyMatch(text -> text.contains(candidate))) {
+                    keys.forEach(key -> {
+                        if (cache.asMap().remove(key) != null) {
+                            invalidations.increment();
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    // Вызывается после удаления из кэша, в том числе по сроку и размеру. Ключ, уже снова попавший в кэш,
+    // остается в индексе
+    private void unindex(Key key) {
+        keysByText.computeIfPresent(key.getText(), (text, keys) -> {
+            if (!cache.asMap().containsKey(key)) {
+                keys.remove(key);
+            }
+            if (!keys.isEmpty()) {
+                return keys;
+            }
+            textsByGram.computeIfPresent(key.getGram(), (gram, indexed) -> {
+                indexed.remove(text);
+                return indexed.isEmpty() ? null : indexed;
+            });
+            return null;
+        });
+    }
+
+    private static int stripe(long gram) {
+        return Math.floorMod(Long.hashCode(gram), VERSION_STRIPES);
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    private static class Key {
+        private final String text;
+        private final int from;
+        private final int size;
+        // Первая триграмма запроса или весь запрос короче триграммы: она есть в любом тексте, содержащем запрос
+        @EqualsAndHashCode.Exclude
+        private final long gram;
+
+        private Key(String text, int from, int size) {
+            this.text = text;
+            this.from = from;
+            this.size = size;
+            this.gram = ItemSearchIndex.queryGrams(text)[0];
+        }
+    }
+}
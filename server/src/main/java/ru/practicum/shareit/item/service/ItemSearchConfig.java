@@ -0,0 +1,34 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+@Slf4j
+@Configuration
+public class ItemSearchConfig {
+    private static final String POSTGRESQL = "PostgreSQL";
+
+    // Полнотекстовый режим опирается на столбец и индексы из миграции для PostgreSQL,
+    // на других базах (H2 в тестах) поиск выполняется обычным запросом like
+    @Bean
+    public ItemSearchMode itemSearchMode(@Value("${shareit.search.mode:index}") ItemSearchMode mode,
+                                         DataSource dataSource) throws SQLException {
+        if (mode != ItemSearchMode.FULLTEXT) {
+            return mode;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            String database = connection.getMetaData().getDatabaseProductName();
+            if (!POSTGRESQL.equals(database)) {
+                log.warn("Полнотекстовый поиск не поддерживается для {}, используется запрос like", database);
+                return ItemSearchMode.SQL;
+            }
+        }
+        return mode;
+    }
+}
@@ -0,0 +1,643 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.dto.ItemCountDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToDoubleFunction;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+// Инвертированный индекс по триграммам названия и описания вещей.
+// Сохраняет семантику поиска по подстроке: триграммы запроса отбирают кандидатов,
+// а окончательная проверка выполняется по нормализованному тексту вещи.
+// Униграммы и биграммы тоже индексируются, чтобы короткий запрос не перебирал все документы
+@Slf4j
+@Component
+public class ItemSearchIndex {
+    private static final int GRAM = 3;
+    private static final int MAX_QUERY_TERMS = 8;
+    private static final int BUILD_BATCH_SIZE = 1000;
+    private static final int COMPACT_THRESHOLD = 10_000;
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    // В популярность вещи входят только ожидающие и подтвержденные бронирования
+    private static final List<BookingStatus> COUNTED_STATUSES = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
+    private static final double BOOKING_BOOST = 0.2;
+    private static final double COMMENT_BOOST = 0.1;
+
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final CommentRepository commentRepository;
+    private final boolean enabled;
+    private final int buildAttempts;
+    private final Duration buildRetryDelay;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Порядковый номер документа растет с каждой записью, поэтому списки вхождений всегда отсортированы.
+    // При изменении вещи ей выдается новый номер, а старый документ помечается удаленным
+    private final List<Document> documents = new ArrayList<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private final ItemNameTrie names = new ItemNameTrie();
+    // Популярность вещей для ранжирования: загружается при построении и растет после коммитов
+    private final Map<Long, Integer> bookingCounts = new HashMap<>();
+    private final Map<Long, Integer> commentCounts = new HashMap<>();
+    // Суммарная длина полей живых документов, для средней длины в BM25
+    private long nameLength;
+    private long descriptionLength;
+    private int deleted;
+    private volatile boolean ready;
+
+    public ItemSearchIndex(ItemRepository itemRepository, BookingRepository bookingRepository,
+                           CommentRepository commentRepository, ItemSearchMode mode,
+                           @Value("${shareit.search.index.build-attempts:3}") int buildAttempts,
+                           @Value("${shareit.search.index.build-retry-delay:5s}") Duration buildRetryDelay) {
+        this.itemRepository = itemRepository;
+        this.bookingRepository = bookingRepository;
+        this.commentRepository = commentRepository;
+        this.enabled = mode == ItemSearchMode.INDEX;
+        this.buildAttempts = buildAttempts;
+        this.buildRetryDelay = buildRetryDelay;
+    }
+
+    // Пока индекс строится, поиск выполняется запросом к базе
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Неудачная попытка не оставляет частичный индекс: он очищается и строится заново.
+    // Если все попытки исчерпаны, исключение останавливает запуск приложения
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                buildOnce();
+                return;
+            } catch (RuntimeException e) {
+                clear();
+                if (attempt >= buildAttempts) {
+                    log.error("Не удалось построить поисковый индекс за {} попыток", attempt, e);
+                    throw e;
+                }
+                log.error("Ошибка построения поискового индекса, попытка {} из {}", attempt, buildAttempts, e);
+                sleep(buildRetryDelay.multipliedBy(attempt));
+            }
+        }
+    }
+
+    private void buildOnce() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            // Счетчики читаются под блокировкой и заменяют накопленные до загрузки: те изменения уже вошли в запрос,
+            // а изменения после коммита ждут блокировку и применяются поверх загруженных. Транзакция, закоммиченная
+            // в момент запуска запроса, может быть учтена дважды - это расхождение в единицы на ранг почти не влияет
+            load(bookingCounts, bookingRepository.countBookingsByItem(COUNTED_STATUSES));
+            load(commentCounts, commentRepository.countCommentsByItem());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        long lastId = 0;
+        int count = 0;
+        List<Item> batch;
+        do {
+            batch = itemRepository.findAllByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, BUILD_BATCH_SIZE));
+            lock.writeLock().lock();
+            try {
+                // Вещь могла быть проиндексирована после коммита раньше, чем до нее дошла загрузка
+                batch.forEach(item -> put(Document.of(item), false));
+            } finally {
+                lock.writeLock().unlock();
+            }
+            count += batch.size();
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == BUILD_BATCH_SIZE);
+        ready = true;
+        log.info("Поисковый индекс построен: {} вещей за {} мс", count, System.currentTimeMillis() - started);
+    }
+
+    // Изменения попадают в индекс только после успешного коммита транзакции
+    public void indexAfterCommit(Item item) {
+        if (!enabled) {
+            return;
+        }
+        Document document = Document.of(item);
+        afterCommit(() -> index(document));
+    }
+
+    public void countBookingAfterCommit(long itemId) {
+        if (enabled) {
+            afterCommit(() -> count(bookingCounts, itemId, 1));
+        }
+    }
+
+    // Отклоненное бронирование перестает влиять на популярность, повторно подтвержденное - снова учитывается
+    public void countBookingStatusChangeAfterCommit(long itemId, BookingStatus previous, BookingStatus current) {
+        int delta = (COUNTED_STATUSES.contains(current) ? 1 : 0) - (COUNTED_STATUSES.contains(previous) ? 1 : 0);
+        if (enabled && delta != 0) {
+            afterCommit(() -> count(bookingCounts, itemId, delta));
+        }
+    }
+
+    public void countCommentAfterCommit(long itemId) {
+        if (enabled) {
+            afterCommit(() -> count(commentCounts, itemId, 1));
+        }
+    }
+
+    // Возвращает id доступных вещей, название или описание которых содержит текст, в порядке возрастания id
+    public List<Long> search(String text, int from, int size) {
+        String query = normalize(text);
+        List<Document> candidates;
+        lock.readLock().lock();
+        try {
+            candidates = candidates(query);
+        } finally {
+            lock.readLock().unlock();
+        }
+        long[] matches = new long[candidates.size()];
+        int count = 0;
+        for (Document document : candidates) {
+            if (document.available) {
+                matches[count++] = document.id;
+            }
+        }
+        Arrays.sort(matches, 0, count);
+        List<Long> page = new ArrayList<>(Math.min(size, Math.max(count - from, 0)));
+        for (int i = from; i < count && i < from + size; i++) {
+            page.add(matches[i]);
+        }
+        return page;
+    }
+
+    // Ранжированный поиск: вещь подходит, если каждое слово запроса входит в ее название или описание.
+    // Релевантность считается по BM25F с двойным весом названия и усиливается числом бронирований и отзывов.
+    // Фильтры available и withRequest сужают выдачу, но не фасеты
+    public RankedResult searchRanked(String text, Boolean available, Boolean withRequest, int from, int size) {
+        String[] terms = queryTerms(text);
+        if (terms.length == 0) {
+            return RankedResult.EMPTY;
+        }
+        lock.readLock().lock();
+        try {
+            int[] frequencies = new int[terms.length];
+            List<Document> matched = new ArrayList<>();
+            List<Document> found = candidates(terms[0]);
+            frequencies[0] = found.size();
+            found.stream().filter(document -> document.containsAll(terms)).forEach(matched::add);
+            for (int i = 1; i < terms.length; i++) {
+                int[] frequency = new int[1];
+                forEachCandidate(terms[i], document -> frequency[0]++);
+                frequencies[i] = frequency[0];
+            }
+            Relevance relevance = new Relevance(terms, frequencies, ordinals.size(), nameLength, descriptionLength);
+            return rank(matched, relevance, this::popularity, available, withRequest, from, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ранжирует вещи, загруженные из базы, когда индекс недоступен. Статистика слов считается
+    // только по переданным вещам, а популярность не учитывается
+    public static RankedResult rank(List<Item> items, String text, Boolean available, Boolean withRequest,
+                                    int from, int size) {
+        String[] terms = queryTerms(text);
+        if (terms.length == 0) {
+            return RankedResult.EMPTY;
+        }
+        int[] frequencies = new int[terms.length];
+        long names = 0;
+        long descriptions = 0;
+        List<Document> matched = new ArrayList<>();
+        for (Item item : items) {
+            Document document = Document.of(item);
+            names += document.name.length();
+            descriptions += document.description.length();
+            for (int i = 0; i < terms.length; i++) {
+                if (document.contains(terms[i])) {
+                    frequencies[i]++;
+                }
+            }
+            if (document.containsAll(terms)) {
+                matched.add(document);
+            }
+        }
+        Relevance relevance = new Relevance(terms, frequencies, items.size(), names, descriptions);
+        return rank(matched, relevance, document -> 1, available, withRequest, from, size);
+    }
+
+    // Подсказки по словам из названий доступных вещей. Короткие префиксы ищутся точно,
+    // в длинных допускаются одна-две опечатки
+    public List<String> suggest(String prefix, int size) {
+        String query = normalize(prefix).strip();
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        int maxEdits = query.length() < 4 ? 0 : query.length() < 8 ? 1 : 2;
+        lock.readLock().lock();
+        try {
+            return names.suggest(query, maxEdits, Math.min(size, ItemNameTrie.MAX_SUGGESTIONS));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static RankedResult rank(List<Document> matched, Relevance relevance,
+                                     ToDoubleFunction<Document> popularity, Boolean available, Boolean withRequest,
+                                     int from, int size) {
+        long availableCount = 0;
+        long withRequestCount = 0;
+        List<Hit> hits = new ArrayList<>(matched.size());
+        for (Document document : matched) {
+            availableCount += document.available ? 1 : 0;
+            withRequestCount += document.withRequest ? 1 : 0;
+            if ((available == null || available == document.available)
+                    && (withRequest == null || withRequest == document.withRequest)) {
+                hits.add(new Hit(document.id, relevance.score(document) * popularity.applyAsDouble(document)));
+            }
+        }
+        hits.sort(Comparator.comparingDouble((Hit hit) -> -hit.score).thenComparingLong(hit -> hit.id));
+        List<Long> ids = hits.stream()
+                .skip(from)
+                .limit(size)
+                .map(hit -> hit.id)
+                .collect(Collectors.toList());
+        return new RankedResult(ids, hits.size(), availableCount, withRequestCount);
+    }
+
+    private double popularity(Document document) {
+        return 1 + BOOKING_BOOST * Math.log1p(Math.max(0, bookingCounts.getOrDefault(document.id, 0)))
+                + COMMENT_BOOST * Math.log1p(commentCounts.getOrDefault(document.id, 0));
+    }
+
+    // Документы, в названии или описании которых есть текст, независимо от доступности вещи
+    private List<Document> candidates(String text) {
+        List<Document> found = new ArrayList<>();
+        forEachCandidate(text, found::add);
+        return found;
+    }
+
+    private void forEachCandidate(String text, Consumer<Document> action) {
+        IntList[] lists = postingsOf(text);
+        if (lists.length == 0) {
+            return;
+        }
+        for (int i = 0; i < lists[0].size; i++) {
+            int ordinal = lists[0].data[i];
+            Document document = documents.get(ordinal);
+            if (document != null && containsAll(lists, ordinal) && document.contains(text)) {
+                action.accept(document);
+            }
+        }
+    }
+
+    private void clear() {
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            ordinals.clear();
+            postings.clear();
+            names.clear();
+            bookingCounts.clear();
+            commentCounts.clear();
+            nameLength = 0;
+            descriptionLength = 0;
+            deleted = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void sleep(Duration delay) {
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Построение поискового индекса прервано", e);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static void load(Map<Long, Integer> counts, List<ItemCountDto> loaded) {
+        counts.clear();
+        loaded.forEach(count -> counts.put(count.getItemId(), count.getCount().intValue()));
+    }
+
+    private void count(Map<Long, Integer> counts, long itemId, int delta) {
+        lock.writeLock().lock();
+        try {
+            counts.merge(itemId, delta, Integer::sum);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(Document document) {
+        lock.writeLock().lock();
+        try {
+            put(document, true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(Document document, boolean replace) {
+        Integer previous = ordinals.get(document.id);
+        if (previous != null) {
+            if (!replace) {
+                return;
+            }
+            Document replaced = documents.set(previous, null);
+            removeTerms(replaced);
+            nameLength -= replaced.name.length();
+            descriptionLength -= replaced.description.length();
+            deleted++;
+        }
+        int ordinal = documents.size();
+        documents.add(document);
+        nameLength += document.name.length();
+        descriptionLength += document.description.length();
+        ordinals.put(document.id, ordinal);
+        addPostings(document, ordinal);
+        if (document.available) {
+            document.terms().forEach(names::add);
+        }
+        if (deleted > COMPACT_THRESHOLD && deleted > documents.size() / 2) {
+            compact();
+        }
+    }
+
+    private void addPostings(Document document, int ordinal) {
+        for (long gram : documentGrams(document.name, document.description)) {
+            postings.computeIfAbsent(gram, key -> new IntList()).add(ordinal);
+        }
+    }
+
+    private void removeTerms(Document document) {
+        if (document.available) {
+            document.terms().forEach(names::remove);
+        }
+    }
+
+    // Перестраивает списки вхождений без удаленных документов
+    private void compact() {
+        List<Document> live = new ArrayList<>(ordinals.size());
+        documents.stream().filter(Objects::nonNull).forEach(live::add);
+        documents.clear();
+        ordinals.clear();
+        postings.clear();
+        deleted = 0;
+        for (Document document : live) {
+            int ordinal = documents.size();
+            documents.add(document);
+            ordinals.put(document.id, ordinal);
+            addPostings(document, ordinal);
+        }
+        log.info("Поисковый индекс сжат: {} вещей", live.size());
+    }
+
+    // Списки вхождений всех триграмм запроса, начиная с самого короткого
+    private IntList[] postingsOf(String query) {
+        long[] grams = queryGrams(query);
+        if (grams.length == 0) {
+            return new IntList[0];
+        }
+        IntList[] lists = new IntList[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = postings.get(grams[i]);
+            if (lists[i] == null) {
+                return new IntList[0];
+            }
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+        return lists;
+    }
+
+    private static boolean containsAll(IntList[] lists, int ordinal) {
+        for (int i = 1; i < lists.length; i++) {
+            if (Arrays.binarySearch(lists[i].data, 0, lists[i].size, ordinal) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Все униграммы, биграммы и триграммы названия и описания
+    static long[] documentGrams(String... texts) {
+        LongStream.Builder grams = LongStream.builder();
+        for (String text : texts) {
+            for (int length = 1; length <= GRAM; length++) {
+                for (int start = 0; start + length <= text.length(); start++) {
+                    grams.add(gram(text, start, length));
+                }
+            }
+        }
+        return grams.build().distinct().toArray();
+    }
+
+    // Триграммы запроса, а запрос короче триграммы ищется по своей униграмме или биграмме целиком
+    static long[] queryGrams(String text) {
+        if (text.length() < GRAM) {
+            return text.isEmpty() ? new long[0] : new long[]{gram(text, 0, text.length())};
+        }
+        return IntStream.rangeClosed(0, text.length() - GRAM)
+                .mapToLong(start -> gram(text, start, GRAM))
+                .distinct()
+                .toArray();
+    }
+
+    // Длина граммы хранится в старших битах, чтобы ключи граммы разной длины не совпадали
+    private static long gram(String text, int start, int length) {
+        long key = length;
+        for (int i = start; i < start + length; i++) {
+            key = key << 16 | text.charAt(i);
+        }
+        return key;
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    // Различные слова запроса, начиная с самого длинного: по нему выбираются кандидаты
+    static String[] queryTerms(String text) {
+        String[] terms = Arrays.stream(WORD_SEPARATOR.split(normalize(text)))
+                .filter(term -> !term.isEmpty())
+                .distinct()
+                .sorted(Comparator.comparingInt(String::length).reversed())
+                .toArray(String[]::new);
+        if (terms.length > MAX_QUERY_TERMS) {
+            throw new IllegalStateException("В поисковом запросе должно быть не больше " + MAX_QUERY_TERMS + " слов");
+        }
+        return terms;
+    }
+
+    // Слова названия для подсказок, однобуквенные отбрасываются
+    static Set<String> terms(String name) {
+        return Arrays.stream(WORD_SEPARATOR.split(normalize(name)))
+                .filter(term -> term.length() > 1)
+                .collect(Collectors.toSet());
+    }
+
+    private static final class Document {
+        private final long id;
+        private final String name;
+        private final String description;
+        private final boolean available;
+        private final boolean withRequest;
+
+        private Document(long id, String name, String description, boolean available, boolean withRequest) {
+            this.id = id;
+            this.name = name;
+            this.description = description;
+            this.available = available;
+            this.withRequest = withRequest;
+        }
+
+        static Document of(Item item) {
+            return new Document(item.getId(), normalize(item.getName()), normalize(item.getDescription()),
+                    Boolean.TRUE.equals(item.getAvailable()), item.getRequestId() != null);
+        }
+
+        boolean contains(String text) {
+            return name.contains(text) || description.contains(text);
+        }
+
+        boolean containsAll(String[] terms) {
+            for (String term : terms) {
+                if (!contains(term)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        Set<String> terms() {
+            return ItemSearchIndex.terms(name);
+        }
+    }
+
+    // BM25F: частота слова в каждом поле нормируется на длину поля относительно средней,
+    // взвешенные частоты складываются и насыщаются один раз на слово. Частотой считается число вхождений подстроки
+    private static final class Relevance {
+        private static final double K1 = 1.2;
+        private static final double B = 0.75;
+        private static final double NAME_WEIGHT = 2;
+        private static final double DESCRIPTION_WEIGHT = 1;
+
+        private final String[] terms;
+        private final double[] idf;
+        private final double averageName;
+        private final double averageDescription;
+
+        private Relevance(String[] terms, int[] frequencies, int documentCount, long nameLength,
+                          long descriptionLength) {
+            this.terms = terms;
+            this.idf = new double[terms.length];
+            for (int i = 0; i < terms.length; i++) {
+                idf[i] = Math.log(1 + (documentCount - frequencies[i] + 0.5) / (frequencies[i] + 0.5));
+            }
+            this.averageName = Math.max(1, (double) nameLength / Math.max(1, documentCount));
+            this.averageDescription = Math.max(1, (double) descriptionLength / Math.max(1, documentCount));
+        }
+
+        double score(Document document) {
+            double score = 0;
+            for (int i = 0; i < terms.length; i++) {
+                double frequency = NAME_WEIGHT * occurrences(document.name, terms[i])
+                        / (1 - B + B * document.name.length() / averageName)
+                        + DESCRIPTION_WEIGHT * occurrences(document.description, terms[i])
+                        / (1 - B + B * document.description.length() / averageDescription);
+                score += idf[i] * frequency * (K1 + 1) / (frequency + K1);
+            }
+            return score;
+        }
+
+        private static int occurrences(String text, String term) {
+            int count = 0;
+            for (int i = text.indexOf(term); i >= 0; i = text.indexOf(term, i + term.length())) {
+                count++;
+            }
+            return count;
+        }
+    }
+
+    private static final class Hit {
+        private final long id;
+        private final double score;
+
+        private Hit(long id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    // Страница id в порядке убывания релевантности, число вещей после фильтров и фасеты по всем совпадениям
+    @Getter
+    @RequiredArgsConstructor
+    public static final class RankedResult {
+        static final RankedResult EMPTY = new RankedResult(List.of(), 0, 0, 0);
+
+        private final List<Long> ids;
+        private final long total;
+        private final long available;
+        private final long withRequest;
+    }
+
+    private static final class IntList {
+        private int[] data = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size + (size >> 1));
+            }
+            data[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package ru.practicum.shareit.item.service;
+
+public enum ItemSearchMode {
+    // Поиск запросом like к таблице items
+    SQL,
+    // Поиск по инвертированному индексу в памяти сервера
+    INDEX,
+    // Ранжированный поиск по индексам pg_trgm и tsvector в PostgreSQL
+    FULLTEXT
+}
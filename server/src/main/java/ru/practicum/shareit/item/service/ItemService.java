@@ -1,9 +1,14 @@
 package ru.practicum.shareit.item.service;
 
+import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSearchResultDto;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface ItemService {
@@ -15,8 +20,23 @@ public interface ItemService {
 
     Item getItemById(Long itemId);
 
+    Item getItemByIdForUpdate(Long itemId);
+
+    List<Item> getItemsByIdForUpdate(Collection<Long> itemIds);
+
+    List<TimeSlotDto> getAvailability(Long itemId, LocalDateTime from, LocalDateTime to);
+
     List<ItemDto> searchItem(String text, Integer from, Integer size);
 
+    ItemSearchResultDto searchRanked(String text, Boolean available, Boolean withRequest, Integer from, Integer size);
+
+    List<String> suggest(String prefix, Integer size);
+
+    // Учитывает бронирование в популярности вещи для ранжированного поиска
+    void countBooking(Long itemId);
+
+    void countBookingStatusChange(Long itemId, BookingStatus previous, BookingStatus current);
+
     List<ItemDto> getAllItemsUser(Long userId, Integer from, Integer size);
 
     List<ItemDto> getItems(long userId);
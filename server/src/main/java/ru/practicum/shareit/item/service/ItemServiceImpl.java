@@ -1,6 +1,7 @@
 package ru.practicum.shareit.item.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
@@ -9,32 +10,48 @@ import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.exception.EntityNotFoundException;
+import ru.practicum.shareit.exception.UserNotFoundException;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentMapper;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemSearchResultDto;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
+import ru.practicum.shareit.item.dto.TimeSlotMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.FromSizeRequest;
 import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.service.UserService;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.BinaryOperator;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
+    private static final List<BookingStatus> BUSY_STATUSES = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final int SUGGEST_SCAN_LIMIT = 1000;
+    private static final int RANKED_SCAN_LIMIT = 1000;
+    // Ограничивает объем выборки занятых периодов и размер ответа
+    private static final int MAX_AVAILABILITY_DAYS = 366;
+
     private final ItemRepository itemRepository;
     private final UserService userService;
     private final CommentRepository commentRepository;
     private final BookingRepository bookingRepository;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemSearchMode itemSearchMode;
+    private final ItemSearchCache itemSearchCache;
 
 
     @Transactional
@@ -43,17 +60,20 @@ public class ItemServiceImpl implements ItemService {
         Item item = ItemMapper.toItem(itemDto);
 
         if (userService.getUserById(userId) == null)
-            throw new EntityNotFoundException("Пользователь не найден");
+            throw new UserNotFoundException();
 
         item.setUserId(userId);
-        return ItemMapper.toItemDto(itemRepository.save(item));
+        Item savedItem = itemRepository.save(item);
+        itemSearchIndex.indexAfterCommit(savedItem);
+        itemSearchCache.invalidateAfterCommit(savedItem.getName(), savedItem.getDescription());
+        return ItemMapper.toItemDto(savedItem);
     }
 
     @Transactional
     @Override
     public ItemDto updateItem(ItemDto updatedItemDto, long itemId, long userId) {
         if (userService.getUserById(userId) == null)
-            throw new EntityNotFoundException("Пользователь не найден");
+            throw new UserNotFoundException();
         Item updatedItem = ItemMapper.toItem(updatedItemDto);
         Item item = itemRepository.findById(itemId).orElseThrow(() -> {
             throw new EntityNotFoundException("Товар не найден");
@@ -61,6 +81,8 @@ public class ItemServiceImpl implements ItemService {
         if (userId != item.getUserId()) {
             throw new EntityNotFoundException("Предмет отсутсвует у данного пользователя");
         }
+        String previousName = item.getName();
+        String previousDescription = item.getDescription();
 
         if (StringUtils.hasText(updatedItem.getName())) {
             item.setName(updatedItem.getName());
@@ -71,7 +93,11 @@ public class ItemServiceImpl implements ItemService {
         if (updatedItem.getAvailable() != null) {
             item.setAvailable(updatedItem.getAvailable());
         }
-        return ItemMapper.toItemDto(itemRepository.save(item));
+        Item savedItem = itemRepository.save(item);
+        itemSearchIndex.indexAfterCommit(savedItem);
+        itemSearchCache.invalidateAfterCommit(previousName, previousDescription,
+                savedItem.getName(), savedItem.getDescription());
+        return ItemMapper.toItemDto(savedItem);
     }
 
     @Override
@@ -85,10 +111,9 @@ public class ItemServiceImpl implements ItemService {
                 .map(CommentMapper::toCommentDto)
                 .collect(Collectors.toList()));
         if (userId.equals(item.getUserId())) {
-            return setLastAndNextBookingForItem(itemDto);
-        } else {
-            return itemDto;
+            setLastAndNextBookings(List.of(itemDto));
         }
+        return itemDto;
     }
 
     @Override
@@ -98,26 +123,147 @@ public class ItemServiceImpl implements ItemService {
         });
     }
 
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Override
+    public Item getItemByIdForUpdate(Long itemId) {
+        return itemRepository.findByIdForUpdate(itemId).orElseThrow(() -> {
+            throw new EntityNotFoundException("Товар не найден");
+        });
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Override
+    public List<Item> getItemsByIdForUpdate(Collection<Long> itemIds) {
+        return itemRepository.findAllByIdForUpdate(itemIds);
+    }
+
+    @Override
+    public List<TimeSlotDto> getAvailability(Long itemId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalStateException("Дата начала периода должна быть раньше даты завершения");
+        }
+        if (to.isAfter(from.plusDays(MAX_AVAILABILITY_DAYS))) {
+            throw new IllegalStateException("Период не может быть длиннее " + MAX_AVAILABILITY_DAYS + " дней");
+        }
+        Item item = getItemById(itemId);
+        List<TimeSlotDto> busySlots = bookingRepository.findBusySlotsByItem(item.getId(), BUSY_STATUSES, from, to);
+        return TimeSlotMapper.toFreeSlots(busySlots, from, to);
+    }
+
     @Override
     public List<ItemDto> searchItem(String text, Integer from, Integer size) {
         Pageable pageable = FromSizeRequest.of(from, size);
         if (!StringUtils.hasText(text)) {
             return new ArrayList<>();
         }
+        return itemSearchCache.get(text, from, size, () -> findItems(text, pageable));
+    }
 
-        return itemRepository.searchItem(text, pageable)
+    private List<ItemDto> findItems(String text, Pageable pageable) {
+        if (itemSearchIndex.isReady()) {
+            List<Long> ids = itemSearchIndex.search(text, (int) pageable.getOffset(), pageable.getPageSize());
+            Map<Long, Item> items = itemRepository.findAllById(ids)
+                    .stream()
+                    .collect(Collectors.toMap(Item::getId, item -> item));
+            return ids.stream()
+                    .map(items::get)
+                    .filter(Objects::nonNull)
+                    .map(ItemMapper::toItemDto)
+                    .collect(Collectors.toList());
+        }
+        if (itemSearchMode == ItemSearchMode.FULLTEXT) {
+            return itemRepository.searchItemFullText(text, ItemRepository.escapeLike(text), pageable)
+                    .stream()
+                    .map(ItemMapper::toItemDto)
+                    .collect(Collectors.toList());
+        }
+
+        return itemRepository.searchItem(ItemRepository.escapeLike(text), pageable)
                 .stream()
                 .map(ItemMapper::toItemDto)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public ItemSearchResultDto searchRanked(String text, Boolean available, Boolean withRequest,
+                                            Integer from, Integer size) {
+        if (from < 0 || size <= 0) {
+            throw new IllegalStateException("Некорректные параметры постраничного вывода");
+        }
+        Pageable pageable = FromSizeRequest.of(from, size);
+        int offset = (int) pageable.getOffset();
+        ItemSearchIndex.RankedResult result;
+        Map<Long, Item> items;
+        boolean truncated = false;
+        if (itemSearchIndex.isReady()) {
+            result = itemSearchIndex.searchRanked(text, available, withRequest, offset, size);
+            items = itemRepository.findAllById(result.getIds())
+                    .stream()
+                    .collect(Collectors.toMap(Item::getId, item -> item));
+        } else {
+            // Без индекса ранжируются вещи, найденные like по самому длинному слову запроса
+            String[] terms = ItemSearchIndex.queryTerms(text);
+            List<Item> scanned = terms.length == 0 ? List.of()
+                    : itemRepository.findAllContaining(ItemRepository.escapeLike(terms[0]),
+                            PageRequest.of(0, RANKED_SCAN_LIMIT));
+            result = ItemSearchIndex.rank(scanned, text, available, withRequest, offset, size);
+            items = scanned.stream().collect(Collectors.toMap(Item::getId, item -> item));
+            truncated = scanned.size() == RANKED_SCAN_LIMIT;
+        }
+        List<ItemDto> page = result.getIds().stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toList());
+        return new ItemSearchResultDto(page, result.getTotal(), truncated,
+                new ItemSearchResultDto.Facets(result.getAvailable(), result.getWithRequest()));
+    }
+
+    @Override
+    public void countBooking(Long itemId) {
+        itemSearchIndex.countBookingAfterCommit(itemId);
+    }
+
+    @Override
+    public void countBookingStatusChange(Long itemId, BookingStatus previous, BookingStatus current) {
+        itemSearchIndex.countBookingStatusChangeAfterCommit(itemId, previous, current);
+    }
+
+    @Override
+    public List<String> suggest(String prefix, Integer size) {
+        if (size <= 0 || size > MAX_SUGGESTIONS) {
+            throw new IllegalStateException("Количество подсказок должно быть от 1 до " + MAX_SUGGESTIONS);
+        }
+        if (!StringUtils.hasText(prefix)) {
+            return new ArrayList<>();
+        }
+        if (itemSearchIndex.isReady()) {
+            return itemSearchIndex.suggest(prefix, size);
+        }
+        // Без индекса подсказки собираются из названий, найденных запросом like, и опечатки не учитываются
+        String query = ItemSearchIndex.normalize(prefix).strip();
+        return itemRepository.findAvailableNamesContaining(ItemRepository.escapeLike(query),
+                        PageRequest.of(0, SUGGEST_SCAN_LIMIT))
+                .stream()
+                .flatMap(name -> ItemSearchIndex.terms(name).stream())
+                .filter(term -> term.startsWith(query))
+                .collect(Collectors.groupingBy(term -> term, Collectors.counting()))
+                .entrySet()
+                .stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(size)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public List<ItemDto> getItems(long userId) {
         if (userId == 0) {
             return getAllItems();
         } else {
             if (userService.getUserById(userId) == null) {
-                throw new EntityNotFoundException("Пользователь не найден");
+                throw new UserNotFoundException();
             }
             return getItemByUser(userId);
         }
@@ -127,17 +273,12 @@ public class ItemServiceImpl implements ItemService {
     public List<ItemDto> getAllItemsUser(Long userId, Integer from, Integer size) {
 
         if (userService.getUserById(userId) == null)
-            throw new EntityNotFoundException("Пользователь не найден");
+            throw new UserNotFoundException();
 
         Pageable pageable = FromSizeRequest.of(from, size);
         List<Item> items = itemRepository.findAllByUserIdOrderByIdAsc(userId, pageable).getContent();
-        List<ItemDto> result = new ArrayList<>();
-
-        for (Item item : items) {
-            ItemDto itemDto = ItemMapper.toItemDto(item);
-            result.add(setLastAndNextBookingForItem(itemDto));
-        }
-
+        List<ItemDto> result = ItemMapper.toItemDtoList(items);
+        setLastAndNextBookings(result);
         return result;
     }
 
@@ -150,11 +291,12 @@ public class ItemServiceImpl implements ItemService {
 
     @Override
     public List<ItemDto> getItemByUser(long userId) {
-        return userService.getUserItems(userId).stream()
+        List<ItemDto> result = userService.getUserItems(userId).stream()
                 .map(ItemMapper::toItemDto)
                 .sorted(Comparator.comparing(ItemDto::getId))
-                .map((this::setLastAndNextBookingForItem))
                 .collect(Collectors.toList());
+        setLastAndNextBookings(result);
+        return result;
     }
 
     @Transactional
@@ -179,29 +321,38 @@ public class ItemServiceImpl implements ItemService {
         comment.setItem(getItemById(itemId));
         comment.setAuthor(UserMapper.toUser(userService.getUserById(userId)));
         comment.setCreated(LocalDateTime.now());
-        return CommentMapper.toCommentDto(commentRepository.save(comment));
-    }
-
-    private ItemDto setLastAndNextBookingForItem(ItemDto itemDto) {
-        Booking lastBooking = null;
-        Booking nextBooking = null;
-        List<Booking> bookings = bookingRepository.findBookingsByItemAsc(itemDto.getId());
-        for (int i = 0; i < bookings.size(); i++) {
-            Booking booking = bookings.get(i);
-            if (booking.getStart().isAfter(LocalDateTime.now())) {
-                nextBooking = booking;
-                if (i != 0) {
-                    lastBooking = bookings.get(i - 1);
-                }
-                break;
-            }
+        Comment savedComment = commentRepository.save(comment);
+        itemSearchIndex.countCommentAfterCommit(itemId);
+        return CommentMapper.toCommentDto(savedComment);
+    }
+
+    private void setLastAndNextBookings(List<ItemDto> items) {
+        if (items.isEmpty()) {
+            return;
         }
-        if (lastBooking != null) {
-            itemDto.setLastBooking(BookingMapper.toBookingDto(lastBooking));
+        LocalDateTime now = LocalDateTime.now();
+        Comparator<Booking> byStart = Comparator.comparing(Booking::getStart).thenComparing(Booking::getId);
+        Map<Long, Booking> lastBookings = new HashMap<>();
+        Map<Long, Booking> nextBookings = new HashMap<>();
+        List<Long> itemIds = items.stream().map(ItemDto::getId).collect(Collectors.toList());
+        for (Booking booking : bookingRepository.findLastAndNextBookingsByItems(itemIds, now)) {
+            Long itemId = booking.getItem().getId();
+            if (booking.getStart().isAfter(now)) {
+                nextBookings.merge(itemId, booking, BinaryOperator.minBy(byStart));
+            } else {
+                lastBookings.merge(itemId, booking, BinaryOperator.maxBy(byStart));
+            }
         }
-        if (nextBooking != null) {
+        for (ItemDto itemDto : items) {
+            Booking nextBooking = nextBookings.get(itemDto.getId());
+            if (nextBooking == null) {
+                continue;
+            }
             itemDto.setNextBooking(BookingMapper.toBookingDto(nextBooking));
+            Booking lastBooking = lastBookings.get(itemDto.getId());
+            if (lastBooking != null) {
+                itemDto.setLastBooking(BookingMapper.toBookingDto(lastBooking));
+            }
         }
-        return itemDto;
     }
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.EntityNotAvailableException;
 import ru.practicum.shareit.exception.EntityNotFoundException;
+import ru.practicum.shareit.exception.UserNotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.repository.ItemRepository;
@@ -37,7 +38,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     @Override
     public ItemRequestDto createItemRequest(Long userId, ItemRequestDto itemRequestDto) {
         if (!userRepository.existsById(userId))
-            throw new EntityNotFoundException("Пользователь не найден");
+            throw new UserNotFoundException();
         ItemRequest itemRequest = ItemRequestMapper.toItemRequest(itemRequestDto);
         itemRequest.setRequesterId(userId);
         itemRequest.setCreated(LocalDateTime.now());
@@ -48,7 +49,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     @Override
     public List<ItemRequestDto> findAllByRequester(Long requesterId) {
         if (!userRepository.existsById(requesterId))
-            throw new EntityNotFoundException("Пользователь не найден");
+            throw new UserNotFoundException();
 
         List<ItemRequestDto> requests = ItemRequestMapper.toItemRequestDtoList(
                 itemRequestRepository.findByRequesterIdIsOrderByCreatedDesc(requesterId)
@@ -78,7 +79,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     @Override
     public ItemRequestDto findById(Long userId, Long requestId) {
         if (!userRepository.existsById(userId))
-            throw new EntityNotFoundException("Пользователь не найден");
+            throw new UserNotFoundException();
         if (!itemRequestRepository.existsById(requestId))
             throw new EntityNotFoundException("Запрос не найден");
 
@@ -2,7 +2,7 @@ package ru.practicum.shareit.user.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import ru.practicum.shareit.exception.EntityNotFoundException;
+import ru.practicum.shareit.exception.UserNotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
@@ -31,7 +31,7 @@ public class UserServiceImpl implements UserService {
     @Override
     public UserDto updateUser(UserDto updatedUser, long userId) {
         User user = userRepository.findById(userId).orElseThrow(() -> {
-            throw new EntityNotFoundException("Пользователь не найден");
+            throw new UserNotFoundException();
         });
 
         if (updatedUser.getName() != null) {
@@ -46,7 +46,7 @@ public class UserServiceImpl implements UserService {
     @Override
     public UserDto getUserById(long userId) {
         User user = userRepository.findById(userId).orElseThrow(() -> {
-            throw new EntityNotFoundException("Пользователь не найден");
+            throw new UserNotFoundException();
         });
         return UserMapper.toUserDto(user);
     }
@@ -60,14 +60,14 @@ public class UserServiceImpl implements UserService {
     @Override
     public void deleteUser(long userId) {
         userRepository.findById(userId).orElseThrow(() -> {
-            throw new EntityNotFoundException("Пользователь не найден");
+            throw new UserNotFoundException();
         });
         userRepository.deleteById(userId);
     }
 
     public Set<Item> getUserItems(long userId) {
         User user = userRepository.findById(userId).orElseThrow(() -> {
-            throw new EntityNotFoundException("Пользователь не найден");
+            throw new UserNotFoundException();
         });
         return user.getUserItems();
     }
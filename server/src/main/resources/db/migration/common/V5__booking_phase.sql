@@ -0,0 +1,18 @@
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS phase VARCHAR(20);
+
+UPDATE bookings SET phase = CASE
+    WHEN end_time < LOCALTIMESTAMP THEN 'COMPLETED'
+    WHEN start_time < LOCALTIMESTAMP THEN 'ACTIVE'
+    ELSE 'UPCOMING'
+END
+WHERE phase IS NULL;
+
+ALTER TABLE bookings ALTER COLUMN phase SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_phase_start ON bookings (booker_id, phase, start_time);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_item_phase_start ON bookings (item_id, phase, start_time);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_phase_start ON bookings (phase, start_time);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_phase_end ON bookings (phase, end_time);
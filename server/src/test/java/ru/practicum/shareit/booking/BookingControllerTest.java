@@ -10,9 +10,14 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingReturnDto;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.EntityNotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.dto.UserDto;
 
@@ -20,12 +25,18 @@ import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.booking.model.BookingStatus.APPROVED;
 import static ru.practicum.shareit.booking.model.BookingStatus.WAITING;
 
 @ExtendWith(MockitoExtension.class)
@@ -85,6 +96,78 @@ public class BookingControllerTest {
                 .andExpect(content().json(mapper.writeValueAsString(bookingReturnDto)));
     }
 
+    @Test
+    void patchBookingsTest() throws Exception {
+        List<BookingDecisionDto> decisions = List.of(new BookingDecisionDto(1L, true),
+                new BookingDecisionDto(2L, false));
+        List<BookingDecisionResultDto> results = List.of(BookingDecisionResultDto.success(1L, APPROVED),
+                BookingDecisionResultDto.failure(2L, "Бронирование не найдено"));
+        when(bookingService.patchBookings(1L, decisions))
+                .thenReturn(results);
+
+        mvc.perform(patch("/bookings/batch")
+                        .header("X-Sharer-User-Id", 1L)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .content(mapper.writeValueAsString(decisions))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(results)));
+    }
+
+    @Test
+    void patchBookingsEmptyBatchTest() throws Exception {
+        performPatchBookings(List.of())
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(bookingService);
+    }
+
+    @Test
+    void patchBookingsTooLargeBatchTest() throws Exception {
+        List<BookingDecisionDto> decisions = new ArrayList<>();
+        for (long id = 1; id <= 501; id++) {
+            decisions.add(new BookingDecisionDto(id, true));
+        }
+
+        performPatchBookings(decisions)
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(bookingService);
+    }
+
+    @Test
+    void patchBookingsNullBookingIdTest() throws Exception {
+        performPatchBookings(List.of(new BookingDecisionDto(1L, true), new BookingDecisionDto(null, false)))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(bookingService);
+    }
+
+    @Test
+    void exportOwnerBookingsTest() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<BookingReturnDto> action = invocation.getArgument(1);
+            action.accept(bookingReturnDto);
+            action.accept(bookingReturnDto);
+            return null;
+        }).when(bookingService).exportOwnerBookings(eq(1L), any());
+        String line = mapper.writeValueAsString(bookingReturnDto);
+
+        mvc.perform(get("/bookings/export")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(line + "\n" + line + "\n"));
+    }
+
+    @Test
+    void exportOwnerBookingsUserNotFoundTest() throws Exception {
+        doThrow(new EntityNotFoundException("Пользователь не найден"))
+                .when(bookingService).exportOwnerBookings(eq(100L), any());
+
+        mvc.perform(get("/bookings/export")
+                        .header("X-Sharer-User-Id", 100L))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void getBookingTest() throws Exception {
         when(bookingService.getBooking(any(), any()))
@@ -132,4 +215,31 @@ public class BookingControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().json(mapper.writeValueAsString(bookingList)));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getUserBookingListAfterCursorTest() throws Exception {
+        bookingList.add(bookingReturnDto);
+        when(bookingService.getUserBookingListAfter(any(), any(), any(), any()))
+                .thenReturn(bookingList);
+
+        mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", 1L)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .param("cursor", "")
+                        .param("size", "1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BookingCursor.HEADER, BookingCursor.of(bookingReturnDto).encode()))
+                .andExpect(content().json(mapper.writeValueAsString(bookingList)));
+    }
+
+    private ResultActions performPatchBookings(List<BookingDecisionDto> decisions) throws Exception {
+        return mvc.perform(patch("/bookings/batch")
+                .header("X-Sharer-User-Id", 1L)
+                .characterEncoding(StandardCharsets.UTF_8)
+                .content(mapper.writeValueAsString(decisions))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON));
+    }
+}
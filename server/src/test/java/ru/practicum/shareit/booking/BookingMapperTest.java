@@ -67,11 +67,26 @@ class BookingMapperTest {
         assertEquals(booking.getId(), result.getId());
         assertEquals(booking.getBooker().getName(), result.getBooker().getName());
         assertEquals(booking.getItem().getName(), result.getItem().getName());
-        assertEquals(booking.getStart(), result.getStart());
-        assertEquals(booking.getEnd(), result.getEnd());
+        assertEquals(Booking.truncate(booking.getStart()), result.getStart());
+        assertEquals(Booking.truncate(booking.getEnd()), result.getEnd());
         assertEquals(booking.getStatus(), result.getStatus());
     }
 
+    @Test
+    void toBookingTruncatesToMicrosTest() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 12, 0, 0, 123_456_789);
+        BookingDto dto = BookingDto.builder()
+                .itemId(booking.getItem().getId())
+                .start(start)
+                .end(start.plusDays(1))
+                .build();
+
+        Booking result = BookingMapper.toBooking(dto, booking.getItem(), booking.getBooker());
+
+        assertEquals(LocalDateTime.of(2030, 1, 1, 12, 0, 0, 123_456_000), result.getStart());
+        assertEquals(LocalDateTime.of(2030, 1, 2, 12, 0, 0, 123_456_000), result.getEnd());
+    }
+
     @Test
     void toBookingDtoTest() {
         BookingDto result = BookingMapper.toBookingDto(booking);
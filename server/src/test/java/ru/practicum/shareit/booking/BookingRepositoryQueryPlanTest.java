@@ -0,0 +1,157 @@
+package ru.practicum.shareit.booking;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-plan;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                "ru.practicum.shareit.booking.BookingRepositoryQueryPlanTest$SqlRecorder"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DirtiesContext
+public class BookingRepositoryQueryPlanTest {
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private final Pageable pageable = PageRequest.of(0, 10);
+
+    @BeforeEach
+    void beforeEach() {
+        SqlRecorder.STATEMENTS.clear();
+    }
+
+    @Test
+    void bookerQueriesUseIndexesTest() {
+        bookingRepository.findBookingsByBooker(1L, pageable);
+        bookingRepository.findFutureBookingsByBooker(1L, pageable);
+        bookingRepository.findBookingsByBookerAndStatus(1L, BookingStatus.WAITING, pageable);
+        bookingRepository.findCurrentBookingForUser(1L, pageable);
+        bookingRepository.findPastBookingForUser(1L, pageable);
+        bookingRepository.findBookingsByBookerAndItemAndStatusNot(1L, 1L, BookingStatus.REJECTED);
+        bookingRepository.findBookingsByBookerAfter(1L, now, 1L, pageable);
+        bookingRepository.findFutureBookingsByBookerAfter(1L, now, 1L, pageable);
+        bookingRepository.findBookingsByBookerAndStatusAfter(1L, BookingStatus.WAITING, now, 1L, pageable);
+        bookingRepository.findCurrentBookingForUserAfter(1L, now, 1L, pageable);
+        bookingRepository.findPastBookingForUserAfter(1L, now, 1L, pageable);
+
+        assertNoTableScans();
+    }
+
+    @Test
+    void itemAndOwnerQueriesUseIndexesTest() {
+        bookingRepository.findLastAndNextBookingsByItems(List.of(1L, 2L), now);
+        bookingRepository.findOverlappingBookings(1L, List.of(BookingStatus.WAITING, BookingStatus.APPROVED),
+                now, now.plusDays(1));
+        bookingRepository.findBookingsByIds(List.of(1L, 2L));
+        bookingRepository.completeBookings(now);
+        bookingRepository.activateBookings(now);
+        bookingRepository.findBookingsByItemsAndStatusBetween(List.of(1L, 2L), BookingStatus.APPROVED,
+                now, now.plusDays(1));
+        bookingRepository.findBookingsByOwner(1L, pageable);
+        bookingRepository.findFutureBookingsByOwner(1L, pageable);
+        bookingRepository.findBookingsByOwnerAndStatus(1L, BookingStatus.WAITING, pageable);
+        bookingRepository.findCurrentBookingsByOwner(1L, pageable);
+        bookingRepository.findPastBookingsByOwner(1L, pageable);
+        bookingRepository.findBookingsByOwnerAfter(1L, now, 1L, pageable);
+        bookingRepository.findFutureBookingsByOwnerAfter(1L, now, 1L, pageable);
+        bookingRepository.findBookingsByOwnerAndStatusAfter(1L, BookingStatus.WAITING, now, 1L, pageable);
+        bookingRepository.findCurrentBookingsByOwnerAfter(1L, now, 1L, pageable);
+        bookingRepository.findPastBookingsByOwnerAfter(1L, now, 1L, pageable);
+
+        assertNoTableScans();
+    }
+
+    @Test
+    void bookerStateQueriesFilterOnPhaseOnlyTest() {
+        bookingRepository.findFutureBookingsByBooker(1L, pageable);
+        bookingRepository.findCurrentBookingForUser(1L, pageable);
+        bookingRepository.findPastBookingForUser(1L, pageable);
+        bookingRepository.findFutureBookingsByBookerAfter(1L, now, 1L, pageable);
+        bookingRepository.findCurrentBookingForUserAfter(1L, now, 1L, pageable);
+        bookingRepository.findPastBookingForUserAfter(1L, now, 1L, pageable);
+
+        assertThat(SqlRecorder.STATEMENTS, not(empty()));
+        for (String sql : new ArrayList<>(SqlRecorder.STATEMENTS)) {
+            String where = sql.substring(sql.indexOf(" where "));
+            assertThat(where, containsString(".phase='"));
+            assertThat(where, not(containsString("end_time")));
+        }
+        assertNoTableScans();
+    }
+
+    @Test
+    void itemPeriodQueriesUseItemRangeIndexesTest() {
+        bookingRepository.findOverlappingBookings(1L, List.of(BookingStatus.WAITING, BookingStatus.APPROVED),
+                now, now.plusDays(1));
+        bookingRepository.findBusySlotsByItem(1L, List.of(BookingStatus.WAITING, BookingStatus.APPROVED),
+                now, now.plusDays(1));
+
+        // На пустой таблице H2 выбирает между (item_id, start_time) и (item_id, end_time) по стоимости,
+        // поэтому проверяем, что индекс из V4 создан, а план идет по составному индексу вещи с границей периода
+        assertThat(jdbcTemplate.queryForObject("select count(*) from information_schema.indexes " +
+                "where index_name = 'idx_bookings_item_end'", Integer.class), equalTo(1));
+        for (String sql : new ArrayList<>(SqlRecorder.STATEMENTS)) {
+            String plan = jdbcTemplate.queryForObject("explain " + sql, String.class, parameters(sql));
+            assertThat(plan, containsString("idx_bookings_item_"));
+            assertThat(plan, containsString("_time "));
+        }
+        assertNoTableScans();
+    }
+
+    @Test
+    void exportQueriesUseIndexesTest() {
+        bookingRepository.findBookingsByOwner(1L, PageRequest.of(0, 500));
+        bookingRepository.findBookingsByOwnerAfter(1L, now, 1L, PageRequest.of(0, 500));
+
+        assertNoTableScans();
+    }
+
+    private void assertNoTableScans() {
+        assertThat(SqlRecorder.STATEMENTS, not(empty()));
+        for (String sql : new ArrayList<>(SqlRecorder.STATEMENTS)) {
+            String plan = jdbcTemplate.queryForObject("explain " + sql, String.class, parameters(sql));
+            assertThat(plan, not(containsString(".tableScan")));
+        }
+    }
+
+    private static Object[] parameters(String sql) {
+        int count = sql.length() - sql.replace("?", "").length();
+        return new Object[count];
+    }
+
+    public static class SqlRecorder implements StatementInspector {
+        static final List<String> STATEMENTS = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.contains("bookings")) {
+                STATEMENTS.add(sql);
+            }
+            return sql;
+        }
+    }
+}
@@ -39,18 +39,21 @@ public class BookingRepositoryTest {
 
     private final LocalDateTime localDateTime = LocalDateTime.now();
 
-    private final User user1 = new User(1L,"user1","user1@mail.com");
-    private final User user2 = new User(2L,"user2","user2@mail.com");
-    private final ItemRequest itemRequest = new ItemRequest(1L,"description", user1.getId(),
+    private final User user1 = new User(null,"user1","user1@mail.com");
+    private final User user2 = new User(null,"user2","user2@mail.com");
+    private final ItemRequest itemRequest = new ItemRequest(null,"description", null,
             localDateTime.minusMonths(2));
-    private final Item item = new Item(1L, "item","desc", false, itemRequest.getRequesterId(), user2.getId());
-    private final Booking booking = new Booking(1L, BookingStatus.REJECTED, user2, item, localDateTime, localDateTime.plusMonths(2));
+    private final Item item = new Item(null, "item","desc", false, null, null);
+    private final Booking booking = new Booking(null, BookingStatus.REJECTED, user2, item, localDateTime, localDateTime.plusMonths(2));
 
     @Test
     void createBookingDataJpaTest() {
         userRepository.save(user1);
         userRepository.save(user2);
+        itemRequest.setRequesterId(user1.getId());
         itemRequestRepository.save(itemRequest);
+        item.setRequestId(itemRequest.getId());
+        item.setUserId(user2.getId());
         itemRepository.save(item);
         bookingRepository.save(booking);
         TypedQuery<Booking> query = em.getEntityManager().createQuery("Select i from Booking i where i.id = :id", Booking.class);
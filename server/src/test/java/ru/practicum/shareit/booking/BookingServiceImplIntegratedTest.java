@@ -7,9 +7,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingReturnDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingPhase;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.exception.EntityNotAvailableException;
@@ -21,9 +25,17 @@ import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -43,6 +55,8 @@ public class BookingServiceImplIntegratedTest {
 
     private final ItemRepository itemRepository;
 
+    private final EntityManagerFactory entityManagerFactory;
+
     private Booking booking;
 
     private User user;
@@ -82,8 +96,8 @@ public class BookingServiceImplIntegratedTest {
                 .itemId(item.getId())
                 .build();
         final BookingReturnDto bookingPrintDto = BookingReturnDto.builder()
-                .start(start)
-                .end(end)
+                .start(Booking.truncate(start))
+                .end(Booking.truncate(end))
                 .item(ItemMapper.toItemDto(item))
                 .booker(UserMapper.toUserDto(user))
                 .status(BookingStatus.WAITING)
@@ -179,14 +193,152 @@ public class BookingServiceImplIntegratedTest {
 
     }
 
+    @Test
+    void createOverlappingBookingExceptionTest() {
+        final LocalDateTime start = LocalDateTime.now().plusDays(1);
+        final LocalDateTime end = LocalDateTime.now().plusDays(3);
+        bookingService.addBooking(BookingDto.builder()
+                .start(start)
+                .end(end)
+                .itemId(item.getId())
+                .build(), user.getId());
+        final BookingDto overlapping = BookingDto.builder()
+                .start(start.plusDays(1))
+                .end(end.plusDays(1))
+                .itemId(item.getId())
+                .build();
+
+        final var exception = assertThrows(
+                EntityNotAvailableException.class,
+                () -> bookingService.addBooking(overlapping, user.getId())
+        );
+
+        assertThat("Предмет уже забронирован на это время", equalTo(exception.getMessage()));
+    }
+
+    @Test
+    void createAdjacentToRejectedBookingTest() {
+        final LocalDateTime start = LocalDateTime.now().plusDays(1);
+        final LocalDateTime end = LocalDateTime.now().plusDays(3);
+        bookingRepository.save(Booking.builder()
+                .start(start)
+                .end(end)
+                .item(item)
+                .booker(user)
+                .status(BookingStatus.REJECTED)
+                .build());
+        bookingService.addBooking(BookingDto.builder()
+                .start(end)
+                .end(end.plusDays(1))
+                .itemId(item.getId())
+                .build(), user.getId());
+
+        final var result = bookingService.addBooking(BookingDto.builder()
+                .start(start)
+                .end(end)
+                .itemId(item.getId())
+                .build(), user.getId());
+
+        assertNotNull(result.getId());
+    }
+
+    @Test
+    void approveOverlappingBookingExceptionTest() {
+        final LocalDateTime start = LocalDateTime.now().plusDays(1);
+        final LocalDateTime end = LocalDateTime.now().plusDays(3);
+        bookingRepository.save(Booking.builder()
+                .start(start)
+                .end(end)
+                .item(item)
+                .booker(user)
+                .status(BookingStatus.APPROVED)
+                .build());
+        booking = bookingRepository.save(Booking.builder()
+                .start(start.plusDays(1))
+                .end(end.plusDays(1))
+                .item(item)
+                .booker(user)
+                .status(BookingStatus.WAITING)
+                .build());
+
+        final var exception = assertThrows(
+                EntityNotAvailableException.class,
+                () -> bookingService.patchBooking(booking.getId(), owner.getId(), true)
+        );
+
+        assertThat("Предмет уже забронирован на это время", equalTo(exception.getMessage()));
+    }
+
+    @Test
+    void patchBookingsTest() {
+        final LocalDateTime start = LocalDateTime.now().plusDays(1);
+        final Booking first = bookingRepository.save(new Booking(null, BookingStatus.WAITING, user, item,
+                start, start.plusDays(2)));
+        final Booking overlapping = bookingRepository.save(new Booking(null, BookingStatus.WAITING, user, item,
+                start.plusDays(1), start.plusDays(3)));
+        final Booking rejected = bookingRepository.save(new Booking(null, BookingStatus.WAITING, user, item,
+                start.plusDays(5), start.plusDays(6)));
+        final Item foreignItem = itemRepository.save(Item.builder()
+                .name("Отвертка")
+                .description("Отвертка")
+                .available(true)
+                .userId(user.getId())
+                .build());
+        final Booking foreign = bookingRepository.save(new Booking(null, BookingStatus.WAITING, owner, foreignItem,
+                start, start.plusDays(1)));
+
+        final List<BookingDecisionResultDto> result = bookingService.patchBookings(owner.getId(), List.of(
+                new BookingDecisionDto(first.getId(), true),
+                new BookingDecisionDto(overlapping.getId(), true),
+                new BookingDecisionDto(rejected.getId(), false),
+                new BookingDecisionDto(foreign.getId(), true),
+                new BookingDecisionDto(100L, true)));
+
+        assertThat(result, equalTo(List.of(
+                BookingDecisionResultDto.success(first.getId(), BookingStatus.APPROVED),
+                BookingDecisionResultDto.failure(overlapping.getId(), "Предмет уже забронирован на это время"),
+                BookingDecisionResultDto.success(rejected.getId(), BookingStatus.REJECTED),
+                BookingDecisionResultDto.failure(foreign.getId(),
+                        "статус бронирования может менять только владелец вещи"),
+                BookingDecisionResultDto.failure(100L, "Бронирование не найдено"))));
+        assertThat(bookingRepository.findById(first.getId()).orElseThrow().getStatus(),
+                equalTo(BookingStatus.APPROVED));
+        assertThat(bookingRepository.findById(overlapping.getId()).orElseThrow().getStatus(),
+                equalTo(BookingStatus.WAITING));
+        assertThat(bookingRepository.findById(rejected.getId()).orElseThrow().getStatus(),
+                equalTo(BookingStatus.REJECTED));
+        assertThat(bookingRepository.findById(foreign.getId()).orElseThrow().getStatus(),
+                equalTo(BookingStatus.WAITING));
+    }
+
+    @Test
+    void patchBookingsDuplicateIdsExceptionTest() {
+        final LocalDateTime start = LocalDateTime.now().plusDays(1);
+        final Booking booking = bookingRepository.save(new Booking(null, BookingStatus.WAITING, user, item,
+                start, start.plusDays(2)));
+        final List<BookingDecisionDto> decisions = List.of(
+                new BookingDecisionDto(booking.getId(), true),
+                new BookingDecisionDto(booking.getId(), false));
+
+        final var exception = assertThrows(
+                IllegalStateException.class,
+                () -> bookingService.patchBookings(owner.getId(), decisions)
+        );
+
+        assertThat(exception.getMessage(),
+                equalTo("Бронирование с id " + booking.getId() + " указано в пакете несколько раз"));
+        assertThat(bookingRepository.findById(booking.getId()).orElseThrow().getStatus(),
+                equalTo(BookingStatus.WAITING));
+    }
+
     @Test
     void findAllByStateAllTest() {
         final Long userId = user.getId();
         final int from = 0;
         final int size = 10;
         final String state = "ALL";
-        LocalDateTime start = LocalDateTime.now().plusDays(1);
-        LocalDateTime end = LocalDateTime.now().plusDays(3);
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime end = LocalDateTime.now().plusDays(3).truncatedTo(ChronoUnit.SECONDS);
         booking = Booking.builder()
                 .start(start)
                 .end(end)
@@ -197,8 +349,8 @@ public class BookingServiceImplIntegratedTest {
         bookingRepository.save(booking);
         final BookingReturnDto bookingPrintDto = BookingReturnDto.builder()
                 .id(booking.getId())
-                .start(start)
-                .end(end)
+                .start(Booking.truncate(start))
+                .end(Booking.truncate(end))
                 .item(ItemMapper.toItemDto(item))
                 .booker(UserMapper.toUserDto(user))
                 .status(BookingStatus.APPROVED)
@@ -221,8 +373,8 @@ public class BookingServiceImplIntegratedTest {
         final int from = 0;
         final int size = 10;
         final String state = "REJECTED";
-        LocalDateTime start = LocalDateTime.now().plusDays(1);
-        LocalDateTime end = LocalDateTime.now().plusDays(3);
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime end = LocalDateTime.now().plusDays(3).truncatedTo(ChronoUnit.SECONDS);
         booking = Booking.builder()
                 .start(start)
                 .end(end)
@@ -233,8 +385,8 @@ public class BookingServiceImplIntegratedTest {
         bookingRepository.save(booking);
         final BookingReturnDto bookingPrintDto = BookingReturnDto.builder()
                 .id(booking.getId())
-                .start(start)
-                .end(end)
+                .start(Booking.truncate(start))
+                .end(Booking.truncate(end))
                 .item(ItemMapper.toItemDto(item))
                 .booker(UserMapper.toUserDto(user))
                 .status(BookingStatus.REJECTED)
@@ -257,8 +409,8 @@ public class BookingServiceImplIntegratedTest {
         final int from = 0;
         final int size = 10;
         final String state = "FUTURE";
-        LocalDateTime start = LocalDateTime.now().plusDays(1);
-        LocalDateTime end = LocalDateTime.now().plusDays(3);
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime end = LocalDateTime.now().plusDays(3).truncatedTo(ChronoUnit.SECONDS);
         booking = Booking.builder()
                 .start(start)
                 .end(end)
@@ -269,8 +421,8 @@ public class BookingServiceImplIntegratedTest {
         bookingRepository.save(booking);
         final BookingReturnDto bookingPrintDto = BookingReturnDto.builder()
                 .id(booking.getId())
-                .start(start)
-                .end(end)
+                .start(Booking.truncate(start))
+                .end(Booking.truncate(end))
                 .item(ItemMapper.toItemDto(item))
                 .booker(UserMapper.toUserDto(user))
                 .status(BookingStatus.APPROVED)
@@ -294,8 +446,8 @@ public class BookingServiceImplIntegratedTest {
         final int from = 0;
         final int size = 10;
         final String state = "WAITING";
-        LocalDateTime start = LocalDateTime.now().plusDays(1);
-        LocalDateTime end = LocalDateTime.now().plusDays(3);
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime end = LocalDateTime.now().plusDays(3).truncatedTo(ChronoUnit.SECONDS);
         booking = Booking.builder()
                 .start(start)
                 .end(end)
@@ -306,8 +458,8 @@ public class BookingServiceImplIntegratedTest {
         bookingRepository.save(booking);
         final BookingReturnDto bookingPrintDto = BookingReturnDto.builder()
                 .id(booking.getId())
-                .start(start)
-                .end(end)
+                .start(Booking.truncate(start))
+                .end(Booking.truncate(end))
                 .item(ItemMapper.toItemDto(item))
                 .booker(UserMapper.toUserDto(user))
                 .status(BookingStatus.WAITING)
@@ -330,8 +482,8 @@ public class BookingServiceImplIntegratedTest {
         final int from = 0;
         final int size = 10;
         final String state = "CURRENT";
-        LocalDateTime start = LocalDateTime.now().minusDays(1);
-        LocalDateTime end = LocalDateTime.now().plusDays(3);
+        LocalDateTime start = LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime end = LocalDateTime.now().plusDays(3).truncatedTo(ChronoUnit.SECONDS);
         booking = Booking.builder()
                 .start(start)
                 .end(end)
@@ -342,8 +494,8 @@ public class BookingServiceImplIntegratedTest {
         bookingRepository.save(booking);
         final BookingReturnDto bookingPrintDto = BookingReturnDto.builder()
                 .id(booking.getId())
-                .start(start)
-                .end(end)
+                .start(Booking.truncate(start))
+                .end(Booking.truncate(end))
                 .item(ItemMapper.toItemDto(item))
                 .booker(UserMapper.toUserDto(user))
                 .status(BookingStatus.APPROVED)
@@ -366,8 +518,8 @@ public class BookingServiceImplIntegratedTest {
         final int from = 0;
         final int size = 10;
         final String state = "PAST";
-        LocalDateTime start = LocalDateTime.now().minusDays(3);
-        LocalDateTime end = LocalDateTime.now().minusDays(1);
+        LocalDateTime start = LocalDateTime.now().minusDays(3).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime end = LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.SECONDS);
         booking = Booking.builder()
                 .start(start)
                 .end(end)
@@ -378,8 +530,8 @@ public class BookingServiceImplIntegratedTest {
         bookingRepository.save(booking);
         final BookingReturnDto bookingPrintDto = BookingReturnDto.builder()
                 .id(booking.getId())
-                .start(start)
-                .end(end)
+                .start(Booking.truncate(start))
+                .end(Booking.truncate(end))
                 .item(ItemMapper.toItemDto(item))
                 .booker(UserMapper.toUserDto(user))
                 .status(BookingStatus.APPROVED)
@@ -510,7 +662,8 @@ public class BookingServiceImplIntegratedTest {
 
         final var result = bookingService.getOwnerBookingList(ownerId, from, size, state);
 
-        assertThat(result.size(), equalTo(0));
+        assertThat(result.size(), equalTo(1));
+        assertThat(result.get(0).getId(), equalTo(booking.getId()));
     }
 
     @Test
@@ -532,7 +685,8 @@ public class BookingServiceImplIntegratedTest {
 
         final var result = bookingService.getOwnerBookingList(ownerId, from, size, state);
 
-        assertThat(result.size(), equalTo(0));
+        assertThat(result.size(), equalTo(1));
+        assertThat(result.get(0).getId(), equalTo(booking.getId()));
     }
 
     @Test
@@ -554,7 +708,8 @@ public class BookingServiceImplIntegratedTest {
 
         final var result = bookingService.getOwnerBookingList(ownerId, from, size, state);
 
-        assertThat(result.size(), equalTo(0));
+        assertThat(result.size(), equalTo(1));
+        assertThat(result.get(0).getId(), equalTo(booking.getId()));
     }
 
     @Test
@@ -576,7 +731,8 @@ public class BookingServiceImplIntegratedTest {
 
         final var result = bookingService.getOwnerBookingList(ownerId, from, size, state);
 
-        assertThat(result.size(), equalTo(0));
+        assertThat(result.size(), equalTo(1));
+        assertThat(result.get(0).getId(), equalTo(booking.getId()));
     }
 
     @Test
@@ -598,7 +754,8 @@ public class BookingServiceImplIntegratedTest {
 
         final var result = bookingService.getOwnerBookingList(ownerId, from, size, state);
 
-        assertThat(result.size(), equalTo(0));
+        assertThat(result.size(), equalTo(1));
+        assertThat(result.get(0).getId(), equalTo(booking.getId()));
     }
 
     @Test
@@ -620,7 +777,213 @@ public class BookingServiceImplIntegratedTest {
 
         final var result = bookingService.getOwnerBookingList(ownerId, from, size, state);
 
-        assertThat(result.size(), equalTo(0));
+        assertThat(result.size(), equalTo(1));
+        assertThat(result.get(0).getId(), equalTo(booking.getId()));
+    }
+
+    @Test
+    void findAllForOwnerPagesAcrossItemsTest() {
+        Item secondItem = Item.builder()
+                .name("Отвертка")
+                .description("Крестовая отвертка")
+                .available(true)
+                .userId(owner.getId())
+                .build();
+        itemRepository.save(secondItem);
+        LocalDateTime now = LocalDateTime.now();
+        Booking first = bookingRepository.save(new Booking(null, BookingStatus.APPROVED, user, item,
+                now.plusDays(1), now.plusDays(2)));
+        Booking second = bookingRepository.save(new Booking(null, BookingStatus.APPROVED, user, secondItem,
+                now.plusDays(3), now.plusDays(4)));
+        Booking third = bookingRepository.save(new Booking(null, BookingStatus.APPROVED, user, item,
+                now.plusDays(5), now.plusDays(6)));
+
+        final var firstPage = bookingService.getOwnerBookingList(owner.getId(), 0, 2, "ALL");
+        final var secondPage = bookingService.getOwnerBookingList(owner.getId(), 2, 2, "ALL");
+
+        assertThat(firstPage.size(), equalTo(2));
+        assertThat(firstPage.get(0).getId(), equalTo(third.getId()));
+        assertThat(firstPage.get(1).getId(), equalTo(second.getId()));
+        assertThat(secondPage.size(), equalTo(1));
+        assertThat(secondPage.get(0).getId(), equalTo(first.getId()));
+    }
+
+    @Test
+    void findAllForOwnerStatementCountDoesNotGrowWithItemsTest() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        bookingRepository.save(new Booking(null, BookingStatus.WAITING, user, item, start, start.plusDays(1)));
+        long statementsForOneItem = countOwnerBookingListStatements();
+
+        for (int i = 0; i < 50; i++) {
+            Item newItem = Item.builder()
+                    .name("Предмет " + i)
+                    .description("Описание " + i)
+                    .available(true)
+                    .userId(owner.getId())
+                    .build();
+            itemRepository.save(newItem);
+            bookingRepository.save(new Booking(null, BookingStatus.WAITING, user, newItem,
+                    start.plusDays(i), start.plusDays(i + 1)));
+        }
+        long statementsForManyItems = countOwnerBookingListStatements();
+
+        assertThat(statementsForManyItems, equalTo(statementsForOneItem));
+    }
+
+    @Test
+    void findAllListsDoNotLoadEntitiesTest() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        bookingRepository.save(new Booking(null, BookingStatus.WAITING, user, item, start, start.plusDays(1)));
+        bookingRepository.flush();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        final var userBookings = bookingService.getUserBookingList(user.getId(), 0, 10, "ALL");
+        final var ownerBookings = bookingService.getOwnerBookingList(owner.getId(), 0, 10, "ALL");
+        long entityLoads = statistics.getEntityLoadCount();
+        statistics.setStatisticsEnabled(false);
+
+        assertThat(entityLoads, equalTo(0L));
+        assertThat(userBookings.size(), equalTo(1));
+        assertThat(userBookings.get(0).getBooker().getEmail(), equalTo(user.getEmail()));
+        assertThat(ownerBookings.size(), equalTo(1));
+        assertThat(ownerBookings.get(0).getItem().getName(), equalTo(item.getName()));
+    }
+
+    @Test
+    void exportOwnerBookingsTest() {
+        final LocalDateTime start = LocalDateTime.now().plusDays(1);
+        final Booking first = bookingRepository.save(new Booking(null, BookingStatus.APPROVED, user, item,
+                start, start.plusDays(1)));
+        final Booking second = bookingRepository.save(new Booking(null, BookingStatus.WAITING, user, item,
+                start.plusDays(2), start.plusDays(3)));
+        final List<BookingReturnDto> exported = new ArrayList<>();
+
+        bookingService.exportOwnerBookings(owner.getId(), exported::add);
+
+        assertThat(exported.size(), equalTo(2));
+        assertThat(exported.get(0).getId(), equalTo(second.getId()));
+        assertThat(exported.get(1).getId(), equalTo(first.getId()));
+        assertThat(exported.get(1).getItem().getId(), equalTo(item.getId()));
+    }
+
+    @Test
+    void exportOwnerBookingsAcrossPagesTest() {
+        final LocalDateTime start = LocalDateTime.now().plusDays(1);
+        final List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 1001; i++) {
+            bookings.add(new Booking(null, BookingStatus.APPROVED, user, item,
+                    start.plusHours(i / 2), start.plusHours(i / 2).plusMinutes(30)));
+        }
+        bookingRepository.saveAll(bookings);
+        final List<BookingReturnDto> exported = new ArrayList<>();
+
+        bookingService.exportOwnerBookings(owner.getId(), exported::add);
+
+        assertThat(exported.size(), equalTo(1001));
+        assertThat(exported.stream().map(BookingReturnDto::getId).distinct().count(), equalTo(1001L));
+        for (int i = 1; i < exported.size(); i++) {
+            BookingReturnDto previous = exported.get(i - 1);
+            BookingReturnDto current = exported.get(i);
+            assertThat(previous.getStart().isAfter(current.getStart())
+                    || previous.getStart().isEqual(current.getStart()) && previous.getId() > current.getId(),
+                    equalTo(true));
+        }
     }
 
-}
+    @Test
+    void exportOwnerBookingsUserNotFoundExceptionTest() {
+        final var exception = assertThrows(
+                EntityNotFoundException.class,
+                () -> bookingService.exportOwnerBookings(100L, booking -> { })
+        );
+
+        assertThat("Пользователь не найден", equalTo(exception.getMessage()));
+    }
+
+    @Test
+    void updateBookingPhasesTest() {
+        final LocalDateTime now = LocalDateTime.now();
+        final Booking past = bookingRepository.save(Booking.builder().status(BookingStatus.APPROVED)
+                .booker(user).item(item).start(now.minusDays(3)).end(now.minusDays(2))
+                .phase(BookingPhase.UPCOMING).build());
+        final Booking current = bookingRepository.save(Booking.builder().status(BookingStatus.APPROVED)
+                .booker(user).item(item).start(now.minusDays(1)).end(now.plusDays(1))
+                .phase(BookingPhase.UPCOMING).build());
+        final Booking future = bookingRepository.save(new Booking(null, BookingStatus.WAITING, user, item,
+                now.plusDays(2), now.plusDays(3)));
+        assertThat(future.getPhase(), equalTo(BookingPhase.UPCOMING));
+        bookingRepository.flush();
+
+        final var pastBeforeSweep = bookingService.getUserBookingList(user.getId(), 0, 10, "PAST");
+        final var currentBeforeSweep = bookingService.getUserBookingList(user.getId(), 0, 10, "CURRENT");
+        final var futureBeforeSweep = bookingService.getUserBookingList(user.getId(), 0, 10, "FUTURE");
+        final int updated = bookingService.updateBookingPhases(now);
+
+        assertThat(pastBeforeSweep, empty());
+        assertThat(currentBeforeSweep, empty());
+        assertThat(futureBeforeSweep.size(), equalTo(3));
+        assertThat(updated, equalTo(2));
+        assertThat(bookingRepository.findById(past.getId()).orElseThrow().getPhase(),
+                equalTo(BookingPhase.COMPLETED));
+        assertThat(bookingRepository.findById(current.getId()).orElseThrow().getPhase(),
+                equalTo(BookingPhase.ACTIVE));
+        assertThat(bookingRepository.findById(future.getId()).orElseThrow().getPhase(),
+                equalTo(BookingPhase.UPCOMING));
+        assertThat(bookingService.getUserBookingList(user.getId(), 0, 10, "PAST").get(0).getId(),
+                equalTo(past.getId()));
+        assertThat(bookingService.getUserBookingList(user.getId(), 0, 10, "CURRENT").get(0).getId(),
+                equalTo(current.getId()));
+        assertThat(bookingService.getUserBookingList(user.getId(), 0, 10, "FUTURE").size(), equalTo(1));
+        assertThat(bookingService.getUserBookingList(user.getId(), 0, 10, "FUTURE").get(0).getId(),
+                equalTo(future.getId()));
+    }
+
+    @Test
+    void findAllAfterCursorWalksWholeHistoryTest() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        Booking first = bookingRepository.save(new Booking(null, BookingStatus.APPROVED, user, item,
+                start, start.plusHours(1)));
+        Booking second = bookingRepository.save(new Booking(null, BookingStatus.APPROVED, user, item,
+                start, start.plusHours(2)));
+        Booking third = bookingRepository.save(new Booking(null, BookingStatus.APPROVED, user, item,
+                start.plusDays(1), start.plusDays(2)));
+
+        final var firstPage = bookingService.getUserBookingListAfter(user.getId(), "", 2, "ALL");
+        final String cursor = BookingCursor.next(firstPage, 2).orElseThrow();
+        final var secondPage = bookingService.getUserBookingListAfter(user.getId(), cursor, 2, "ALL");
+        final var ownerPage = bookingService.getOwnerBookingListAfter(owner.getId(), cursor, 2, "ALL");
+
+        assertThat(firstPage.size(), equalTo(2));
+        assertThat(firstPage.get(0).getId(), equalTo(third.getId()));
+        assertThat(firstPage.get(1).getId(), equalTo(second.getId()));
+        assertThat(secondPage.size(), equalTo(1));
+        assertThat(secondPage.get(0).getId(), equalTo(first.getId()));
+        assertThat(ownerPage.size(), equalTo(1));
+        assertThat(ownerPage.get(0).getId(), equalTo(first.getId()));
+        assertThat(BookingCursor.next(secondPage, 2).isPresent(), equalTo(false));
+    }
+
+    @Test
+    void findAllAfterIncorrectCursorExceptionTest() {
+        final var exception = assertThrows(
+                EntityNotAvailableException.class,
+                () -> bookingService.getUserBookingListAfter(user.getId(), "not-a-cursor", 2, "ALL"));
+
+        assertThat("Некорректный курсор: not-a-cursor", equalTo(exception.getMessage()));
+    }
+
+    private long countOwnerBookingListStatements() {
+        bookingRepository.flush();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        for (String state : new String[]{"ALL", "FUTURE", "WAITING", "REJECTED", "CURRENT", "PAST"}) {
+            bookingService.getOwnerBookingList(owner.getId(), 0, 10, state);
+        }
+        long count = statistics.getPrepareStatementCount();
+        statistics.setStatisticsEnabled(false);
+        return count;
+    }
+}
\ No newline at end of file
@@ -151,6 +151,19 @@ class BookingServiceImplTest {
         assertEquals("Бронирование уже подтверждено", exc.getMessage());
     }
 
+    @Test
+    void patchBookingRejectedUncountsBookingTest() {
+        when(bookingRepository.findById(1L))
+                .thenReturn(Optional.of(booking));
+        when(bookingRepository.save(booking))
+                .thenReturn(booking);
+
+        final var result = bookingService.patchBooking(booking.getId(), user.getId(), false);
+
+        assertThat(result.getStatus(), equalTo(BookingStatus.REJECTED));
+        verify(itemService).countBookingStatusChange(item.getId(), BookingStatus.WAITING, BookingStatus.REJECTED);
+    }
+
     @Test
     void getBookingFailBookingTest() {
         when(bookingRepository.findById(1L))
@@ -5,12 +5,16 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.exception.EntityNotFoundException;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSearchResultDto;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
 import ru.practicum.shareit.item.service.ItemService;
 
 import java.nio.charset.StandardCharsets;
@@ -23,6 +27,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -212,6 +217,42 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$", hasSize(0)));
     }
 
+    @Test
+    void suggestTest() throws Exception {
+        when(itemService.suggest("дре", 5))
+                .thenReturn(List.of("дрель", "дрейф"));
+
+        mvc.perform(get("/items/suggest")
+                        .param("prefix", "дре")
+                        .param("size", "5")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0]", is("дрель")))
+                .andExpect(jsonPath("$[1]", is("дрейф")));
+    }
+
+    @Test
+    void searchRankedTest() throws Exception {
+        when(itemService.searchRanked("дрель", true, null, 0, 5))
+                .thenReturn(new ItemSearchResultDto(List.of(itemDto), 3, false, new ItemSearchResultDto.Facets(1, 2)));
+
+        mvc.perform(get("/items/search/ranked")
+                        .param("text", "дрель")
+                        .param("available", "true")
+                        .param("size", "5")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id", is(itemDto.getId()), Long.class))
+                .andExpect(jsonPath("$.total", is(3)))
+                .andExpect(jsonPath("$.truncated", is(false)))
+                .andExpect(jsonPath("$.facets.available", is(1)))
+                .andExpect(jsonPath("$.facets.withRequest", is(2)));
+    }
+
     @Test
     void getByIdTest() throws Exception {
         when(itemService.getById(anyLong(), anyLong()))
@@ -233,6 +274,31 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.comments", hasSize(0)));
     }
 
+    @Test
+    void getByIdWithBookingsIsNotCacheableTest() throws Exception {
+        ItemDto itemWithBooking = new ItemDto(1L, "user_1", "user_1 description", true, 4L);
+        itemWithBooking.setNextBooking(BookingDto.builder().id(1L).bookerId(2L)
+                .start(LocalDateTime.now().plusDays(1)).end(LocalDateTime.now().plusDays(2)).build());
+        when(itemService.getById(anyLong(), anyLong()))
+                .thenReturn(itemWithBooking);
+
+        mvc.perform(get("/items/{itemId}", 1L)
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"))
+                .andExpect(jsonPath("$.nextBooking.id", is(1L), Long.class));
+
+        when(itemService.getById(anyLong(), anyLong()))
+                .thenReturn(itemDto);
+
+        mvc.perform(get("/items/{itemId}", 1L)
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CACHE_CONTROL));
+    }
+
     @Test
     void getAllItemsUserTest() throws Exception {
         final Integer from = 0;
@@ -259,4 +325,21 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$[0].nextBooking", is(itemDto.getNextBooking())))
                 .andExpect(jsonPath("$[0].comments", hasSize(0)));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAvailabilityTest() throws Exception {
+        final LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+        final LocalDateTime to = from.plusDays(2);
+        when(itemService.getAvailability(1L, from, to))
+                .thenReturn(List.of(new TimeSlotDto(from.plusDays(1), to)));
+
+        mvc.perform(get("/items/1/availability")
+                        .param("from", from.toString())
+                        .param("to", to.toString())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].start", is("2030-01-02T10:00:00")))
+                .andExpect(jsonPath("$[0].end", is("2030-01-03T10:00:00")));
+    }
+}
@@ -0,0 +1,114 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemSearchCache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ItemSearchCacheTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ItemSearchCache cache = new ItemSearchCache(true, 100, Duration.ofMinutes(1), meterRegistry);
+    private final AtomicInteger drillLoads = new AtomicInteger();
+    private final AtomicInteger ladderLoads = new AtomicInteger();
+
+    @Test
+    void getCachesByNormalizedTextAndPageTest() {
+        searchDrill("Дрель", 0);
+        searchDrill("дРЕЛЬ", 0);
+        searchDrill("дрель", 10);
+
+        assertEquals(2, drillLoads.get());
+        assertEquals(1.0 / 3, meterRegistry.get("shareit.search.cache.hit-ratio").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void invalidateAfterCommitDropsOnlyMatchingQueriesTest() {
+        searchDrill("дрель", 0);
+        searchLadder();
+
+        cache.invalidateAfterCommit("Дрель ударная", "Мощная");
+        searchDrill("дрель", 0);
+        searchLadder();
+
+        assertEquals(2, drillLoads.get());
+        assertEquals(1, ladderLoads.get());
+        assertEquals(1.0, meterRegistry.get("shareit.search.cache.invalidations").counter().count());
+    }
+
+    @Test
+    void invalidateAfterCommitUsesPreviousTextTest() {
+        searchLadder();
+
+        cache.invalidateAfterCommit("Лестница", "Складная", "Стремянка", "Складная");
+        searchLadder();
+
+        assertEquals(2, ladderLoads.get());
+    }
+
+    @Test
+    void writeLeavesUnrelatedQueriesCachedTest() {
+        for (int i = 0; i < 50; i++) {
+            cache.get("пила " + i, 0, 10, List::of);
+        }
+        searchDrill("дрель", 0);
+        searchLadder();
+
+        cache.invalidateAfterCommit("Дрель ударная", "Мощная");
+        cache.invalidateAfterCommit("Шуруповерт", "Без аккумулятора");
+        searchLadder();
+
+        assertEquals(1, ladderLoads.get());
+        assertEquals(1.0, meterRegistry.get("shareit.search.cache.invalidations").counter().count());
+        assertEquals(51.0, meterRegistry.get("cache.size").tag("cache", "item-search").gauge().value());
+    }
+
+    @Test
+    void searchRacingWithMatchingWriteIsNotCachedTest() {
+        cache.get("дрель", 0, 10, () -> {
+            cache.invalidateAfterCommit("Дрель ударная", "Мощная");
+            return loadDrill();
+        });
+        cache.get("лестн", 0, 10, () -> {
+            cache.invalidateAfterCommit("Дрель аккумуляторная", "Новая");
+            ladderLoads.incrementAndGet();
+            return List.of();
+        });
+        searchDrill("дрель", 0);
+        searchLadder();
+
+        assertEquals(2, drillLoads.get());
+        assertEquals(1, ladderLoads.get());
+    }
+
+    @Test
+    void disabledCacheAlwaysLoadsTest() {
+        ItemSearchCache disabled = new ItemSearchCache(false, 100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+        disabled.get("дрель", 0, 10, this::loadDrill);
+        disabled.get("дрель", 0, 10, this::loadDrill);
+
+        assertEquals(2, drillLoads.get());
+    }
+
+    private void searchDrill(String text, int from) {
+        cache.get(text, from, 10, this::loadDrill);
+    }
+
+    private void searchLadder() {
+        cache.get("лестн", 0, 10, () -> {
+            ladderLoads.incrementAndGet();
+            return List.of(new ItemDto(2L, "Лестница", "Складная", true, null));
+        });
+    }
+
+    private List<ItemDto> loadDrill() {
+        drillLoads.incrementAndGet();
+        return List.of(new ItemDto(1L, "Дрель", "Простая", true, null));
+    }
+}
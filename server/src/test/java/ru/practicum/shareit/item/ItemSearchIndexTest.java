@@ -0,0 +1,328 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.dto.ItemCountDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemSearchIndex;
+import ru.practicum.shareit.item.service.ItemSearchMode;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ItemSearchIndexTest {
+    private final ItemRepository itemRepository = Mockito.mock(ItemRepository.class);
+    private final BookingRepository bookingRepository = Mockito.mock(BookingRepository.class);
+    private final CommentRepository commentRepository = Mockito.mock(CommentRepository.class);
+
+    private ItemSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(itemRepository.findAllByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenReturn(List.of(
+                item(1L, "Дрель", "Простая дрель", true),
+                item(2L, "Отвертка", "Аккумуляторная отвертка", true),
+                item(3L, "Дрель ударная", "Мощная", false),
+                item(4L, "Лестница", "Складная, для дрели не подходит", true)));
+        index = create(ItemSearchMode.INDEX);
+        index.build();
+    }
+
+    @Test
+    void searchBySubstringIgnoringCaseTest() {
+        assertTrue(index.isReady());
+        assertEquals(List.of(1L, 4L), index.search("ДРЕЛ", 0, 10));
+        assertEquals(List.of(2L), index.search("аккУм", 0, 10));
+        assertEquals(List.of(4L), index.search("я, д", 0, 10));
+        assertEquals(List.of(), index.search("пила", 0, 10));
+    }
+
+    @Test
+    void searchShortTextTest() {
+        assertEquals(List.of(1L, 2L, 4L), index.search("т", 0, 10));
+    }
+
+    @Test
+    void searchShortTextUsesExactGramsTest() {
+        assertEquals(List.of(1L, 4L), index.search("др", 0, 10));
+        assertEquals(List.of(2L), index.search("ак", 0, 10));
+        assertEquals(List.of(4L), index.search(", ", 0, 10));
+        assertEquals(List.of(), index.search("дп", 0, 10));
+
+        index.indexAfterCommit(item(4L, "Лестница", "Складная", true));
+
+        assertEquals(List.of(1L), index.search("др", 0, 10));
+    }
+
+    @Test
+    void searchRankedWithShortWordsTest() {
+        assertEquals(Set.of(1L, 3L), Set.copyOf(index.searchRanked("дрель д", null, null, 0, 10).getIds()));
+        assertEquals(0, index.searchRanked("дрель ю", null, null, 0, 10).getTotal());
+    }
+
+    @Test
+    void searchRankedRejectsTooManyWordsTest() {
+        assertEquals(0, index.searchRanked("а б в г д е ж з", null, null, 0, 10).getTotal());
+        assertThrows(IllegalStateException.class,
+                () -> index.searchRanked("а б в г д е ж з и", null, null, 0, 10));
+    }
+
+    @Test
+    void searchPagesTest() {
+        assertEquals(List.of(1L), index.search("дрел", 0, 1));
+        assertEquals(List.of(4L), index.search("дрел", 1, 1));
+        assertEquals(List.of(), index.search("дрел", 2, 1));
+    }
+
+    @Test
+    void indexAfterCommitReplacesItemTest() {
+        index.indexAfterCommit(item(1L, "Перфоратор", "Бьет бетон", true));
+        index.indexAfterCommit(item(3L, "Дрель ударная", "Мощная", true));
+        index.indexAfterCommit(item(5L, "Дрель-шуруповерт", "Новая", true));
+
+        assertEquals(List.of(3L, 4L, 5L), index.search("дрел", 0, 10));
+        assertEquals(List.of(1L), index.search("перфоратор", 0, 10));
+    }
+
+    @Test
+    void suggestByPrefixTest() {
+        assertEquals(List.of("дрель"), index.suggest("ДР", 10));
+        assertEquals(List.of("лестница"), index.suggest("лес", 10));
+        assertEquals(List.of(), index.suggest("уда", 10));
+        assertEquals(List.of(), index.suggest("  ", 10));
+    }
+
+    @Test
+    void suggestToleratesTyposTest() {
+        assertEquals(List.of("дрель"), index.suggest("дрэль", 10));
+        assertEquals(List.of("лестница"), index.suggest("лесница", 10));
+        assertEquals(List.of("отвертка"), index.suggest("отверкта", 10));
+        assertEquals(List.of(), index.suggest("дрэ", 10));
+    }
+
+    @Test
+    void suggestRanksByPopularityAndFollowsUpdatesTest() {
+        index.indexAfterCommit(item(5L, "Дрейф-якорь", "Для лодки", true));
+        index.indexAfterCommit(item(6L, "Дрель аккумуляторная", "Новая", true));
+
+        assertEquals(List.of("дрель", "дрейф"), index.suggest("др", 10));
+        assertEquals(List.of("дрель"), index.suggest("др", 1));
+
+        index.indexAfterCommit(item(1L, "Дрель", "Простая дрель", false));
+        index.indexAfterCommit(item(6L, "Шуруповерт", "Новый", true));
+
+        assertEquals(List.of("дрейф"), index.suggest("др", 10));
+        assertEquals(List.of("шуруповерт"), index.suggest("шур", 10));
+    }
+
+    @Test
+    void suggestAfterRemovedBranchesTest() {
+        index.indexAfterCommit(item(5L, "Шуруповерт", "Новый", true));
+        index.indexAfterCommit(item(5L, "Шуруп", "Новый", true));
+
+        assertEquals(List.of("шуруп"), index.suggest("шуру", 10));
+        assertEquals(List.of(), index.suggest("шуруповер", 10));
+
+        index.indexAfterCommit(item(5L, "Пила", "Новая", false));
+        index.indexAfterCommit(item(6L, "Шуруповерт", "Новый", true));
+
+        assertEquals(List.of("шуруповерт"), index.suggest("шуру", 10));
+        assertEquals(List.of(), index.suggest("пил", 10));
+    }
+
+    @Test
+    void searchRankedByRelevanceTest() {
+        ItemSearchIndex.RankedResult result = index.searchRanked("Дрель", null, null, 0, 10);
+
+        assertEquals(List.of(1L, 3L), result.getIds());
+        assertEquals(2, result.getTotal());
+        assertEquals(1, result.getAvailable());
+        assertEquals(0, result.getWithRequest());
+        assertEquals(List.of(1L, 3L, 4L), index.searchRanked("дрел", null, null, 0, 10).getIds());
+        assertEquals(List.of(3L, 4L), index.searchRanked("дрел", null, null, 1, 10).getIds());
+    }
+
+    @Test
+    void searchRankedRequiresEveryWordTest() {
+        assertEquals(List.of(1L), index.searchRanked("простая, ДРЕЛЬ", null, null, 0, 10).getIds());
+        assertEquals(List.of(), index.searchRanked("простая пила", null, null, 0, 10).getIds());
+        assertEquals(List.of(), index.searchRanked(" , ", null, null, 0, 10).getIds());
+    }
+
+    @Test
+    void searchRankedFiltersWithoutNarrowingFacetsTest() {
+        index.indexAfterCommit(new Item(5L, "Дрель", "Под заказ", true, 10L));
+
+        ItemSearchIndex.RankedResult result = index.searchRanked("дрель", true, true, 0, 10);
+
+        assertEquals(List.of(5L), result.getIds());
+        assertEquals(1, result.getTotal());
+        assertEquals(2, result.getAvailable());
+        assertEquals(1, result.getWithRequest());
+        assertEquals(List.of(3L), index.searchRanked("дрель", false, null, 0, 10).getIds());
+    }
+
+    @Test
+    void searchRankedBoostsPopularItemsTest() {
+        index.indexAfterCommit(item(5L, "Дрель", "Простая дрель", true));
+        assertEquals(List.of(1L, 5L, 3L), index.searchRanked("дрель", null, null, 0, 10).getIds());
+
+        index.countCommentAfterCommit(5L);
+        assertEquals(List.of(5L, 1L, 3L), index.searchRanked("дрель", null, null, 0, 10).getIds());
+
+        index.countBookingAfterCommit(1L);
+        assertEquals(List.of(1L, 5L, 3L), index.searchRanked("дрель", null, null, 0, 10).getIds());
+    }
+
+    @Test
+    void searchRankedIgnoresRejectedBookingsTest() {
+        index.indexAfterCommit(item(5L, "Дрель", "Простая дрель", true));
+        index.countBookingAfterCommit(5L);
+        assertEquals(List.of(5L, 1L, 3L), index.searchRanked("дрель", null, null, 0, 10).getIds());
+
+        index.countBookingStatusChangeAfterCommit(5L, BookingStatus.WAITING, BookingStatus.APPROVED);
+        assertEquals(List.of(5L, 1L, 3L), index.searchRanked("дрель", null, null, 0, 10).getIds());
+
+        index.countBookingStatusChangeAfterCommit(5L, BookingStatus.APPROVED, BookingStatus.REJECTED);
+        assertEquals(List.of(1L, 5L, 3L), index.searchRanked("дрель", null, null, 0, 10).getIds());
+
+        index.countBookingStatusChangeAfterCommit(5L, BookingStatus.REJECTED, BookingStatus.APPROVED);
+        assertEquals(List.of(5L, 1L, 3L), index.searchRanked("дрель", null, null, 0, 10).getIds());
+    }
+
+    @Test
+    void buildLoadsPopularityTest() {
+        when(bookingRepository.countBookingsByItem(List.of(BookingStatus.WAITING, BookingStatus.APPROVED)))
+                .thenReturn(List.of(new ItemCountDto(3L, 50L)));
+        ItemSearchIndex popular = create(ItemSearchMode.INDEX);
+        popular.build();
+
+        assertEquals(List.of(3L, 1L), popular.searchRanked("дрель", null, null, 0, 10).getIds());
+    }
+
+    @Test
+    void buildReplacesCountsCollectedBeforeLoadTest() {
+        when(bookingRepository.countBookingsByItem(List.of(BookingStatus.WAITING, BookingStatus.APPROVED)))
+                .thenReturn(List.of(new ItemCountDto(1L, 20L), new ItemCountDto(3L, 10L)));
+        ItemSearchIndex popular = create(ItemSearchMode.INDEX);
+        for (int i = 0; i < 50; i++) {
+            popular.countBookingAfterCommit(3L);
+        }
+        popular.build();
+
+        assertEquals(List.of(1L, 3L), popular.searchRanked("дрель", null, null, 0, 10).getIds());
+    }
+
+    @Test
+    void rankLoadedItemsTest() {
+        List<Item> items = List.of(
+                item(1L, "Дрель", "Простая дрель", true),
+                item(2L, "Лестница", "Складная, с полкой для дрели", true),
+                item(3L, "Дрель ударная", "Мощная", false));
+
+        ItemSearchIndex.RankedResult result = ItemSearchIndex.rank(items, "дрел", true, null, 0, 10);
+
+        assertEquals(List.of(1L, 2L), result.getIds());
+        assertEquals(2, result.getTotal());
+        assertEquals(2, result.getAvailable());
+    }
+
+    @Test
+    void disabledIndexIsNeverReadyTest() {
+        ItemSearchIndex disabled = create(ItemSearchMode.SQL);
+        disabled.build();
+
+        assertFalse(disabled.isReady());
+    }
+
+    @Test
+    void buildRetriesWithoutKeepingPartialIndexTest() {
+        when(itemRepository.findAllByIdGreaterThanOrderByIdAsc(anyLong(), any()))
+                .thenReturn(itemsFrom(1, 1000, "Дрель"))
+                .thenThrow(new IllegalStateException("Соединение с базой потеряно"))
+                .thenReturn(List.of(item(1L, "Пила", "Ручная", true)));
+        ItemSearchIndex retried = create(ItemSearchMode.INDEX);
+
+        retried.build();
+
+        assertTrue(retried.isReady());
+        assertEquals(List.of(), retried.search("дрель", 0, 10));
+        assertEquals(List.of(1L), retried.search("пила", 0, 10));
+    }
+
+    @Test
+    void buildFailsAfterLastAttemptTest() {
+        Mockito.clearInvocations(itemRepository);
+        when(itemRepository.findAllByIdGreaterThanOrderByIdAsc(anyLong(), any()))
+                .thenThrow(new IllegalStateException("База недоступна"));
+        ItemSearchIndex failed = create(ItemSearchMode.INDEX);
+
+        assertThrows(IllegalStateException.class, failed::build);
+
+        assertFalse(failed.isReady());
+        verify(itemRepository, times(3)).findAllByIdGreaterThanOrderByIdAsc(anyLong(), any());
+    }
+
+    @Test
+    void buildAndSearchGeneratedItemsTest() {
+        String[] words = {"дрель", "пила", "лестница", "отвертка", "молоток", "шуруповерт", "стремянка", "рубанок"};
+        List<Item> items = new ArrayList<>();
+        for (int i = 1; i <= 20_000; i++) {
+            items.add(item((long) i, words[i % words.length] + " модель " + i,
+                    "Описание " + words[(i * 7) % words.length] + " номер " + i, i % 3 != 0));
+        }
+        when(itemRepository.findAllByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenAnswer(invocation -> {
+            long lastId = invocation.getArgument(0);
+            Pageable page = invocation.getArgument(1);
+            return items.subList((int) lastId, (int) Math.min(items.size(), lastId + page.getPageSize()));
+        });
+        ItemSearchIndex generated = create(ItemSearchMode.INDEX);
+
+        // Границы времени с большим запасом: тест ловит деградацию сложности, а не измеряет скорость
+        assertTimeout(Duration.ofSeconds(20), generated::build);
+        assertTimeout(Duration.ofSeconds(10), () -> {
+            for (int i = 0; i < 20; i++) {
+                assertEquals(10, generated.search("дрел", i, 10).size());
+                assertEquals(10, generated.searchRanked("пила модель", true, null, i, 10).getIds().size());
+                generated.search("ль", 0, 10);
+                generated.search("12345", 0, 10);
+            }
+        });
+        assertEquals(List.of(12346L), generated.search("модель 12346", 0, 10));
+    }
+
+    private ItemSearchIndex create(ItemSearchMode mode) {
+        return new ItemSearchIndex(itemRepository, bookingRepository, commentRepository, mode, 3, Duration.ZERO);
+    }
+
+    private static List<Item> itemsFrom(long first, int count, String name) {
+        List<Item> items = new ArrayList<>();
+        for (long id = first; id < first + count; id++) {
+            items.add(item(id, name, name + " " + id, true));
+        }
+        return items;
+    }
+
+    private static Item item(Long id, String name, String description, boolean available) {
+        return new Item(id, name, description, available, null);
+    }
+}
@@ -0,0 +1,118 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemSearchMode;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+// Проверяет миграцию V6 и полнотекстовый запрос на настоящем PostgreSQL, без Docker тест пропускается
+@Transactional
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(
+        properties = {"shareit.search.mode=fulltext", "shareit.search.cache.enabled=false"},
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ItemSearchPostgresTest {
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:13.7-alpine");
+
+    private final ItemService itemService;
+    private final ItemSearchMode itemSearchMode;
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private User owner;
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.driverClassName", POSTGRES::getDriverClassName);
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        owner = userRepository.save(new User(null, "owner", "owner@email.com"));
+    }
+
+    @Test
+    void migrationCreatesSearchStructuresTest() {
+        assertThat(itemSearchMode, equalTo(ItemSearchMode.FULLTEXT));
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from pg_extension where extname = 'pg_trgm'", Integer.class), equalTo(1));
+        assertThat(jdbcTemplate.queryForObject(
+                "select is_generated from information_schema.columns " +
+                        "where table_name = 'items' and column_name = 'search_vector'", String.class),
+                equalTo("ALWAYS"));
+        assertThat(jdbcTemplate.queryForList(
+                        "select indexname from pg_indexes where tablename = 'items' and indexdef like '%USING gin%'",
+                        String.class),
+                containsInAnyOrder("idx_items_search_vector", "idx_items_name_trgm", "idx_items_description_trgm"));
+    }
+
+    @Test
+    void searchItemFullTextTest() {
+        Item inDescription = save("Набор бит", "насадка на дрель", true);
+        Item inName = save("Дрель ударная", "мощная", true);
+        save("Дрель сломанная", "не работает", false);
+        Item discount = save("Скидка 50%", "на все товары", true);
+
+        // Совпадение в названии весит больше, чем в описании, хотя вещь с описанием сохранена раньше
+        assertThat(ids(itemService.searchItem("ДРЕЛЬ", 0, 10)),
+                equalTo(List.of(inName.getId(), inDescription.getId())));
+        assertThat(ids(itemService.searchItem("50%", 0, 10)), equalTo(List.of(discount.getId())));
+        assertThat(ids(itemService.searchItem("%", 0, 10)), equalTo(List.of(discount.getId())));
+        assertThat(ids(itemService.searchItem("д_ель", 0, 10)), equalTo(List.of()));
+    }
+
+    @Test
+    void searchItemFullTextUsesTrigramIndexesTest() {
+        save("Дрель ударная", "мощная", true);
+        jdbcTemplate.execute("set local enable_seqscan = off");
+
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "explain select i.* from items i where i.available is true " +
+                        "and (lower(i.name) like '%дрел%' or lower(i.description) like '%дрел%')", String.class));
+
+        assertThat(plan, containsString("idx_items_name_trgm"));
+        assertThat(plan, containsString("idx_items_description_trgm"));
+    }
+
+    private Item save(String name, String description, boolean available) {
+        return itemRepository.save(Item.builder()
+                .name(name)
+                .description(description)
+                .available(available)
+                .userId(owner.getId())
+                .build());
+    }
+
+    private static List<Long> ids(List<ItemDto> items) {
+        return items.stream().map(ItemDto::getId).collect(Collectors.toList());
+    }
+}
@@ -12,6 +12,8 @@ import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.exception.EntityNotFoundException;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSearchResultDto;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
@@ -21,6 +23,7 @@ import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -302,6 +305,74 @@ public class ItemServiceImplIntegratedTest {
         assertThat(result.get(0).getComments(), equalTo(List.of()));
     }
 
+    @Test
+    void searchItemSkipsUnavailableItemsMatchedByNameTest() {
+        itemRepository.save(Item.builder()
+                .name("item1 broken")
+                .description("description")
+                .available(false)
+                .userId(createOwner.getId())
+                .build());
+
+        final List<ItemDto> result = itemService.searchItem("item1", 0, 10);
+
+        assertThat(result.size(), equalTo(1));
+        assertThat(result.get(0).getId(), equalTo(createItem.getId()));
+    }
+
+    @Test
+    void searchItemMatchesLikeWildcardsLiterallyTest() {
+        Item discount = itemRepository.save(Item.builder()
+                .name("Скидка 50%")
+                .description("item_2 со скидкой")
+                .available(true)
+                .userId(createOwner.getId())
+                .build());
+
+        assertThat(itemService.searchItem("ite_1", 0, 10), equalTo(List.of()));
+        assertThat(itemService.searchItem("%", 0, 10).size(), equalTo(1));
+        assertThat(itemService.searchItem("%", 0, 10).get(0).getId(), equalTo(discount.getId()));
+        assertThat(itemService.searchItem("item_", 0, 10).get(0).getId(), equalTo(discount.getId()));
+        assertThat(itemService.suggest("ite_", 10), equalTo(List.of()));
+        assertThat(itemService.suggest("%", 10), equalTo(List.of()));
+    }
+
+    @Test
+    void suggestWithoutIndexTest() {
+        itemRepository.save(Item.builder()
+                .name("Item10 large")
+                .description("description")
+                .available(true)
+                .userId(createOwner.getId())
+                .build());
+
+        assertThat(itemService.suggest("ITEM", 10), equalTo(List.of("item1", "item10")));
+        assertThat(itemService.suggest("larg", 10), equalTo(List.of("large")));
+        assertThrows(IllegalStateException.class, () -> itemService.suggest("item", 0));
+    }
+
+    @Test
+    void searchRankedWithoutIndexTest() {
+        Item spare = itemRepository.save(Item.builder()
+                .name("Item1 spare")
+                .description("spare part for item1")
+                .available(false)
+                .userId(createOwner.getId())
+                .build());
+
+        ItemSearchResultDto all = itemService.searchRanked("item1", null, null, 0, 10);
+        ItemSearchResultDto available = itemService.searchRanked("ITEM1", true, null, 0, 10);
+
+        assertThat(all.getTotal(), equalTo(2L));
+        assertThat(all.getItems().get(0).getId(), equalTo(createItem.getId()));
+        assertThat(all.getFacets(), equalTo(new ItemSearchResultDto.Facets(1, 0)));
+        assertThat(available.getTotal(), equalTo(1L));
+        assertThat(available.getItems().get(0).getId(), equalTo(createItem.getId()));
+        assertThat(itemService.searchRanked("item1 spare", null, null, 0, 10).getItems().get(0).getId(),
+                equalTo(spare.getId()));
+        assertThrows(IllegalStateException.class, () -> itemService.searchRanked("item1", null, null, 0, 0));
+    }
+
     @Test
     void searchItemUncTextTest() {
         final int from = 0;
@@ -320,4 +391,87 @@ public class ItemServiceImplIntegratedTest {
 
         assertThat(result.size(), equalTo(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAllItemsUserWithLastAndNextBookingTest() {
+        final User booker = User.builder()
+                .name("Booker")
+                .email("booker@email.com")
+                .build();
+        userRepository.save(booker);
+        final Item secondItem = Item.builder()
+                .name("item2")
+                .description("description")
+                .available(true)
+                .userId(createOwner.getId())
+                .build();
+        itemRepository.save(secondItem);
+        final LocalDateTime now = LocalDateTime.now();
+        bookingRepository.save(new Booking(null, BookingStatus.APPROVED, booker, createItem,
+                now.minusDays(10), now.minusDays(9)));
+        final Booking last = bookingRepository.save(new Booking(null, BookingStatus.APPROVED, booker, createItem,
+                now.minusDays(3), now.minusDays(2)));
+        final Booking next = bookingRepository.save(new Booking(null, BookingStatus.APPROVED, booker, createItem,
+                now.plusDays(1), now.plusDays(2)));
+        bookingRepository.save(new Booking(null, BookingStatus.APPROVED, booker, createItem,
+                now.plusDays(5), now.plusDays(6)));
+        final Booking secondNext = bookingRepository.save(new Booking(null, BookingStatus.WAITING, booker, secondItem,
+                now.plusDays(3), now.plusDays(4)));
+
+        final List<ItemDto> result = itemService.getAllItemsUser(createOwner.getId(), 0, 10);
+
+        assertThat(result.size(), equalTo(2));
+        assertThat(result.get(0).getLastBooking().getId(), equalTo(last.getId()));
+        assertThat(result.get(0).getNextBooking().getId(), equalTo(next.getId()));
+        assertThat(result.get(1).getLastBooking(), equalTo(null));
+        assertThat(result.get(1).getNextBooking().getId(), equalTo(secondNext.getId()));
+    }
+
+    @Test
+    void getAvailabilityTest() {
+        final User booker = User.builder()
+                .name("Booker")
+                .email("booker@email.com")
+                .build();
+        userRepository.save(booker);
+        final LocalDateTime from = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        final LocalDateTime to = from.plusDays(10);
+        bookingRepository.save(new Booking(null, BookingStatus.APPROVED, booker, createItem,
+                from.minusDays(1), from.plusDays(1)));
+        bookingRepository.save(new Booking(null, BookingStatus.WAITING, booker, createItem,
+                from.plusDays(3), from.plusDays(4)));
+        bookingRepository.save(new Booking(null, BookingStatus.REJECTED, booker, createItem,
+                from.plusDays(5), from.plusDays(6)));
+
+        final List<TimeSlotDto> result = itemService.getAvailability(createItem.getId(), from, to);
+
+        assertThat(result.size(), equalTo(2));
+        assertThat(result.get(0), equalTo(new TimeSlotDto(from.plusDays(1), from.plusDays(3))));
+        assertThat(result.get(1), equalTo(new TimeSlotDto(from.plusDays(4), to)));
+    }
+
+    @Test
+    void getAvailabilityTooLongPeriodTest() {
+        final LocalDateTime from = LocalDateTime.now();
+
+        assertThat(itemService.getAvailability(createItem.getId(), from, from.plusDays(366)).size(), equalTo(1));
+        final var exception = assertThrows(
+                IllegalStateException.class,
+                () -> itemService.getAvailability(createItem.getId(), from, from.plusDays(366).plusSeconds(1))
+        );
+
+        assertThat("Период не может быть длиннее 366 дней", equalTo(exception.getMessage()));
+    }
+
+    @Test
+    void getAvailabilityItemNotFoundExceptionTest() {
+        final LocalDateTime from = LocalDateTime.now();
+
+        final var exception = assertThrows(
+                EntityNotFoundException.class,
+                () -> itemService.getAvailability(Long.MAX_VALUE, from, from.plusDays(1))
+        );
+
+        assertThat("Товар не найден", equalTo(exception.getMessage()));
+    }
+}
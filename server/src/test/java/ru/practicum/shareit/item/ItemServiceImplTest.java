@@ -1,11 +1,13 @@
 package ru.practicum.shareit.item;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
@@ -15,8 +17,12 @@ import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSearchResultDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemSearchCache;
+import ru.practicum.shareit.item.service.ItemSearchIndex;
+import ru.practicum.shareit.item.service.ItemSearchMode;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
 import ru.practicum.shareit.request.model.ItemRequest;
@@ -27,6 +33,7 @@ import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.service.UserService;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -39,9 +46,12 @@ public class ItemServiceImplTest {
     private final ItemRequestRepository itemRequestRepository = Mockito.mock(ItemRequestRepository.class);
 
     private final UserService userService = Mockito.mock(UserServiceImpl.class);
+    private final ItemSearchIndex itemSearchIndex = Mockito.mock(ItemSearchIndex.class);
+    private final ItemSearchCache itemSearchCache = new ItemSearchCache(false, 1, Duration.ofMinutes(1),
+            new SimpleMeterRegistry());
 
     private final ItemService itemService = new ItemServiceImpl(itemRepository, userService,
-            commentRepository, bookingRepository);
+            commentRepository, bookingRepository, itemSearchIndex, ItemSearchMode.SQL, itemSearchCache);
 
     private Item item;
     private ItemDto itemDto;
@@ -215,4 +225,25 @@ public class ItemServiceImplTest {
                 .when(itemRepository.findById(1L)).thenReturn(Optional.ofNullable(item));
         Assertions.assertThrows(EntityNotFoundException.class, () -> itemService.getItems(100L));
     }
-}
\ No newline at end of file
+
+    @Test
+    void searchRankedWithoutIndexReportsTruncatedScanTest() {
+        List<Item> scanned = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            scanned.add(new Item(id, "Дрель " + id, "Простая дрель", true, null, 1L));
+        }
+        Mockito
+                .when(itemRepository.findAllContaining("дрель", PageRequest.of(0, 1000)))
+                .thenReturn(scanned);
+        Mockito
+                .when(itemRepository.findAllContaining("рубанок", PageRequest.of(0, 1000)))
+                .thenReturn(scanned.subList(0, 1));
+
+        ItemSearchResultDto full = itemService.searchRanked("дрель", null, null, 0, 10);
+        ItemSearchResultDto exact = itemService.searchRanked("рубанок", null, null, 0, 10);
+
+        Assertions.assertEquals(1000, full.getTotal());
+        Assertions.assertTrue(full.isTruncated());
+        Assertions.assertFalse(exact.isTruncated());
+    }
+}
@@ -0,0 +1,55 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
+import ru.practicum.shareit.item.dto.TimeSlotMapper;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TimeSlotMapperTest {
+    private final LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private final LocalDateTime to = from.plusDays(10);
+
+    @Test
+    void toFreeSlotsWithoutBookingsTest() {
+        List<TimeSlotDto> result = TimeSlotMapper.toFreeSlots(List.of(), from, to);
+
+        assertEquals(List.of(new TimeSlotDto(from, to)), result);
+    }
+
+    @Test
+    void toFreeSlotsMergesOverlappingBookingsTest() {
+        List<TimeSlotDto> busy = List.of(
+                new TimeSlotDto(from.minusDays(1), from.plusDays(1)),
+                new TimeSlotDto(from.plusDays(2), from.plusDays(5)),
+                new TimeSlotDto(from.plusDays(3), from.plusDays(4)),
+                new TimeSlotDto(from.plusDays(5), from.plusDays(6)),
+                new TimeSlotDto(from.plusDays(9), to.plusDays(1)));
+
+        List<TimeSlotDto> result = TimeSlotMapper.toFreeSlots(busy, from, to);
+
+        assertEquals(List.of(
+                new TimeSlotDto(from.plusDays(1), from.plusDays(2)),
+                new TimeSlotDto(from.plusDays(6), from.plusDays(9))), result);
+    }
+
+    @Test
+    void toFreeSlotsForManyBookingsTest() {
+        List<TimeSlotDto> busy = new ArrayList<>();
+        LocalDateTime start = from;
+        for (int i = 0; i < 10_000; i++) {
+            busy.add(new TimeSlotDto(start, start.plusHours(1)));
+            start = start.plusHours(2);
+        }
+
+        List<TimeSlotDto> result = TimeSlotMapper.toFreeSlots(busy, from, start);
+
+        assertEquals(10_000, result.size());
+        assertEquals(new TimeSlotDto(from.plusHours(1), from.plusHours(2)), result.get(0));
+        assertEquals(new TimeSlotDto(start.minusHours(1), start), result.get(9_999));
+    }
+}
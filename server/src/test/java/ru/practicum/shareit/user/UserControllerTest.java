@@ -11,6 +11,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.exception.UserNotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserService;
 
@@ -127,4 +128,16 @@ class UserControllerTest {
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getMissingUserTest() throws Exception {
+        when(userService.getUserById(anyLong()))
+                .thenThrow(new UserNotFoundException());
+
+        mvc.perform(get("/users/99")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(header().string(UserNotFoundException.HEADER, UserNotFoundException.ENTITY))
+                .andExpect(jsonPath("$.Error", Matchers.is("Пользователь не найден")));
+    }
+}
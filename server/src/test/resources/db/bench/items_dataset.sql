@@ -0,0 +1,27 @@
+-- Набор данных для проверки режима shareit.search.mode=fulltext на PostgreSQL.
+-- Запуск: psql -d shareit -f items_dataset.sql, затем выполнить EXPLAIN ANALYZE ниже
+-- и убедиться, что используются idx_items_name_trgm/idx_items_description_trgm, а не Seq Scan.
+
+INSERT INTO users (name, email)
+SELECT 'bench' || g, 'bench' || g || '@bench.ru'
+FROM generate_series(1, 1000) AS g
+ON CONFLICT (email) DO NOTHING;
+
+INSERT INTO items (name, description, available, user_id)
+SELECT (ARRAY['Дрель', 'Перфоратор', 'Лестница', 'Пила', 'Шуруповерт', 'Палатка', 'Велосипед', 'Утюг'])[1 + g % 8]
+           || ' ' || substr(md5(g::text), 1, 8),
+       (ARRAY['мощная', 'складная', 'аккумуляторная', 'почти новая', 'для дачи', 'с кейсом'])[1 + g % 6]
+           || ' ' || substr(md5((g * 7)::text), 1, 16),
+       g % 5 <> 0,
+       (SELECT min(id) FROM users WHERE email LIKE '%@bench.ru') + g % 1000
+FROM generate_series(1, 1000000) AS g;
+
+ANALYZE items;
+
+EXPLAIN ANALYZE
+SELECT i.* FROM items i
+WHERE i.available IS TRUE
+  AND (lower(i.name) LIKE concat('%', lower('перфор'), '%')
+    OR lower(i.description) LIKE concat('%', lower('перфор'), '%'))
+ORDER BY ts_rank(i.search_vector, plainto_tsquery('simple', 'перфор')) DESC, i.id
+LIMIT 10;